@@ -0,0 +1,92 @@
+package com.emp.ems.bench;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.emp.ems.entities.Money;
+
+/**
+ * Money helpers against the approaches they replaced: a transfer's balance updates and a
+ * day's interest on long paise versus the double rupees they used to be, formatting paise
+ * versus String.format("%.2f") on a double, and half-even daily interest on longs versus
+ * BigDecimal arithmetic.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MoneyBenchmark {
+
+	private static final BigDecimal DAYS = BigDecimal.valueOf(Money.DAYS_PER_YEAR);
+
+	long paise = 123_456_789L;
+	double rate = 0.04;
+	StringBuilder sb = new StringBuilder(32);
+
+	long fromPaise = 500_000_000_000L;
+	long toPaise = 0;
+	long amountPaise = 12_345L;
+	double fromRupees = 5_000_000_000.0;
+	double toRupees = 0;
+	double amountRupees = 123.45;
+	double rupees = 1_234_567.89;
+
+	@Benchmark
+	public long transferPaise() {
+		fromPaise = Money.subtract(fromPaise, amountPaise);
+		toPaise = Money.add(toPaise, amountPaise);
+		return fromPaise + toPaise;
+	}
+
+	@Benchmark
+	public double transferRupees() {
+		fromRupees = fromRupees - amountRupees;
+		toRupees = toRupees + amountRupees;
+		return fromRupees + toRupees;
+	}
+
+	@Benchmark
+	public double dailyInterestDouble() {
+		return rupees * rate / Money.DAYS_PER_YEAR;
+	}
+
+	@Benchmark
+	public String format() {
+		return Money.format(paise);
+	}
+
+	@Benchmark
+	public StringBuilder appendTo() {
+		sb.setLength(0);
+		return Money.appendTo(sb, paise);
+	}
+
+	@Benchmark
+	public String stringFormat() {
+		return String.format("%.2f", Money.toRupees(paise));
+	}
+
+	@Benchmark
+	public long dailyInterestMicros() {
+		return Money.dailyInterestMicros(paise, rate);
+	}
+
+	@Benchmark
+	public long dailyInterestBigDecimal() {
+		return BigDecimal.valueOf(paise).multiply(BigDecimal.valueOf(rate)).movePointRight(6)
+				.divide(DAYS, 0, RoundingMode.HALF_EVEN).longValueExact();
+	}
+}
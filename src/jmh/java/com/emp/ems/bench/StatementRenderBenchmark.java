@@ -0,0 +1,86 @@
+package com.emp.ems.bench;
+
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.emp.ems.ServiceImpl.StatementServiceImpl;
+import com.emp.ems.dto.StatementLine;
+import com.emp.ems.dto.StatementPeriod;
+import com.emp.ems.entities.Account;
+import com.emp.ems.entities.AccountType;
+import com.emp.ems.entities.Customer;
+import com.emp.ems.entities.TransactionType;
+
+/**
+ * Time and allocation per statement of {@code rows} rows, rendered from rows already in
+ * memory (no database) to a discarding stream. With {@code -prof gc}, gc.alloc.rate.norm
+ * is the bytes allocated per statement.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StatementRenderBenchmark {
+
+	@Param({"1000"})
+	int rows;
+
+	StatementServiceImpl renderer;
+	Account account;
+	StatementPeriod period;
+	List<StatementLine> lines;
+
+	@Setup
+	public void setup() {
+		renderer = new StatementServiceImpl(null, null, 500);
+		period = StatementPeriod.of(null, null, YearMonth.of(2024, 1));
+
+		Customer customer = new Customer();
+		customer.setFullName("Asha Verma");
+		account = new Account();
+		account.setAccountNumber("BB10000001");
+		account.setType(AccountType.SAVINGS);
+		account.setCustomer(customer);
+
+		// Mix of the three row shapes, a few failed, several rows per minute
+		lines = new ArrayList<>(rows);
+		LocalDateTime t = LocalDateTime.of(2024, 1, 31, 23, 59);
+		for (int i = 0; i < rows; i++) {
+			LocalDateTime at = t.minusSeconds(i * 40L);
+			String status = i % 50 == 0 ? "FAILED" : "SUCCESS";
+			long amount = 1_000L + (i * 7919L) % 5_000_000L;
+			switch (i % 3) {
+				case 0 -> lines.add(new StatementLine((long) rows - i, at, TransactionType.DEPOSIT,
+						"Deposit into BB10000001", amount, status, null, "BB10000001"));
+				case 1 -> lines.add(new StatementLine((long) rows - i, at, TransactionType.WITHDRAW,
+						"Withdraw from BB10000001", amount, status, "BB10000001", null));
+				default -> lines.add(new StatementLine((long) rows - i, at, TransactionType.TRANSFER,
+						"Transfer from BB10000001 to BB1000" + (2000 + i % 40), amount, status,
+						"BB10000001", "BB1000" + (2000 + i % 40)));
+			}
+		}
+	}
+
+	@Benchmark
+	public void render() {
+		renderer.writeStatementPdf(account, period, lines, OutputStream.nullOutputStream());
+	}
+}
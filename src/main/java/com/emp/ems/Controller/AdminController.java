@@ -1,21 +1,39 @@
 package com.emp.ems.Controller;
 
+import java.time.YearMonth;
 import java.util.List;
+import java.util.Map;
 
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import com.emp.ems.Repositories.InterestAccrualRepository.ChunkTotals;
 import com.emp.ems.Service.CustomerService;
+import com.emp.ems.Service.ScheduledTransactionService;
+import com.emp.ems.Service.StatementBatchService;
+import com.emp.ems.ServiceImpl.InterestService;
 import com.emp.ems.entities.Customer;
+import com.emp.ems.entities.Money;
+import com.emp.ems.entities.ScheduledTransaction;
+import com.emp.ems.entities.StatementBatchRun;
 @CrossOrigin("*")
 @RestController
 @RequestMapping("/api/admin")
 public class AdminController {
 
     private final CustomerService customerService;
+    private final StatementBatchService statementBatchService;
+    private final ScheduledTransactionService scheduledTransactionService;
+    private final InterestService interestService;
 
-    public AdminController(CustomerService customerService) {
+    public AdminController(CustomerService customerService, StatementBatchService statementBatchService,
+                           ScheduledTransactionService scheduledTransactionService, InterestService interestService) {
         this.customerService = customerService;
+        this.statementBatchService = statementBatchService;
+        this.scheduledTransactionService = scheduledTransactionService;
+        this.interestService = interestService;
     }
 
     @GetMapping("/customers")
@@ -40,4 +58,53 @@ public class AdminController {
         customerService.save(c);
         return ResponseEntity.ok("Customer unlocked");
     }
+
+    // Month-end statements for every account; runs in the background, poll the returned run.
+    // Calling it again for a month whose run failed, was interrupted or ended PARTIAL resumes it.
+    @PostMapping("/statements/batch")
+    public ResponseEntity<?> startStatementBatch(@RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth month) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(statementBatchService.start(month));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", e.getMessage(),
+                "message", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                "error", e.getMessage(),
+                "message", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/statements/batch/{id}")
+    public ResponseEntity<StatementBatchRun> getStatementBatch(@PathVariable Long id) {
+        return ResponseEntity.ok(statementBatchService.getRun(id));
+    }
+
+    // Standing orders switched off after repeated failures, with the last failure reason
+    @GetMapping("/scheduled-transactions/suspended")
+    public ResponseEntity<List<ScheduledTransaction>> getSuspendedScheduledTransactions() {
+        return ResponseEntity.ok(scheduledTransactionService.getSuspended());
+    }
+
+    // Posts a month's accrued interest to the balances; normally done on the 1st by the scheduler.
+    // Calling it again only posts what is still unposted (e.g. a day accrued late).
+    @PostMapping("/interest/post")
+    public ResponseEntity<?> postInterest(@RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth month) {
+        try {
+            ChunkTotals posted = interestService.postInterest(month);
+            return ResponseEntity.ok(Map.of(
+                "month", month.toString(),
+                "accounts", posted.accounts(),
+                "interest", Money.toRupees(posted.interestMinor())));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", e.getMessage(),
+                "message", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                "error", e.getMessage(),
+                "message", e.getMessage()));
+        }
+    }
 }
@@ -3,13 +3,14 @@ package com.emp.ems.Controller;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Random;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import com.emp.ems.Service.CustomerService;
+import com.emp.ems.Service.OtpService;
 import com.emp.ems.dto.LoginResponse;
 import com.emp.ems.dto.OtpLoginRequest;
 import com.emp.ems.dto.OtpResponse;
@@ -21,9 +22,11 @@ import com.emp.ems.entities.Customer;
 public class AuthController {
 
     private final CustomerService customerService;
+    private final OtpService otpService;
 
-    public AuthController(CustomerService customerService) {
+    public AuthController(CustomerService customerService, OtpService otpService) {
         this.customerService = customerService;
+        this.otpService = otpService;
     }
 
    
@@ -48,11 +51,17 @@ public class AuthController {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
         }
 
-        // Generate 6-digit OTP
-        String code = String.format("%06d", 100000 + new Random().nextInt(900000));
-        c.setOtpCode(code);
-        c.setOtpExpiry(LocalDateTime.now().plusMinutes(5));
-        customerService.save(c);
+        // Generate 6-digit OTP; kept in memory only, the customer row is not written
+        String code;
+        try {
+            code = otpService.generateOtp(c.getEmail());
+        } catch (IllegalStateException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "30")
+                    .body(error);
+        }
 
         // Return OTP in response for demo (since no SMTP configured)
         OtpResponse response = new OtpResponse(
@@ -96,11 +105,8 @@ public class AuthController {
             }
         }
 
-        // Validate OTP
-        if (c.getOtpCode() == null ||
-            c.getOtpExpiry() == null ||
-            LocalDateTime.now().isAfter(c.getOtpExpiry()) ||
-            !c.getOtpCode().equals(req.otp.trim())) {
+        // Validate OTP; the only customer-row writes on login are the lockout counters
+        if (!otpService.validateOtp(c.getEmail(), req.otp.trim())) {
 
             int attempts = c.getFailedLoginAttempts() + 1;
             c.setFailedLoginAttempts(attempts);
@@ -115,11 +121,11 @@ public class AuthController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
         }
 
-        // Login successful - clear OTP and failed attempts
-        c.setOtpCode(null);
-        c.setOtpExpiry(null);
-        c.setFailedLoginAttempts(0);
-        customerService.save(c);
+        // Login successful - the OTP is used up; reset failed attempts if there were any
+        if (c.getFailedLoginAttempts() != 0) {
+            c.setFailedLoginAttempts(0);
+            customerService.save(c);
+        }
 
         // Return customer data with login response
         LoginResponse loginResponse = new LoginResponse("Login successful", c);
@@ -0,0 +1,65 @@
+package com.emp.ems.Controller;
+
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Supplier;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import com.emp.ems.Service.FixedDepositService;
+import com.emp.ems.dto.FixedDepositRequest;
+import com.emp.ems.entities.FixedDeposit;
+@CrossOrigin("*")
+@RestController
+@RequestMapping("/api/fixed-deposits")
+public class FixedDepositController {
+
+    private final FixedDepositService service;
+
+    public FixedDepositController(FixedDepositService service) {
+        this.service = service;
+    }
+
+    // Moves the amount out of the account into a new deposit at the current rate
+    @PostMapping
+    public ResponseEntity<?> open(@RequestBody FixedDepositRequest req) {
+        return handle(HttpStatus.CREATED, () -> service.open(req));
+    }
+
+    // Closes a deposit before maturity; it pays interest at the premature rate
+    @PostMapping("/{id}/close")
+    public ResponseEntity<?> close(@PathVariable Long id) {
+        return handle(HttpStatus.OK, () -> service.close(id));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> get(@PathVariable Long id) {
+        return handle(HttpStatus.OK, () -> service.getFixedDeposit(id));
+    }
+
+    @GetMapping("/account/{accountNumber}")
+    public ResponseEntity<List<FixedDeposit>> getForAccount(@PathVariable String accountNumber) {
+        return ResponseEntity.ok(service.getForAccount(accountNumber));
+    }
+
+    private ResponseEntity<?> handle(HttpStatus ok, Supplier<FixedDeposit> action) {
+        try {
+            return ResponseEntity.status(ok).body(action.get());
+        } catch (IllegalArgumentException e) {
+            return error(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (NoSuchElementException e) {
+            return error(HttpStatus.NOT_FOUND, e.getMessage());
+        } catch (IllegalStateException e) {
+            return error(HttpStatus.CONFLICT, e.getMessage());
+        }
+    }
+
+    private ResponseEntity<Map<String, String>> error(HttpStatus status, String message) {
+        return ResponseEntity.status(status).body(Map.of(
+            "error", message,
+            "message", message));
+    }
+}
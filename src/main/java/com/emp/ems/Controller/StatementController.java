@@ -1,73 +1,333 @@
 package com.emp.ems.Controller;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.zip.GZIPOutputStream;
 
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import jakarta.servlet.http.HttpServletRequest;
 
 import com.emp.ems.Repositories.AccountRepository;
+import com.emp.ems.Repositories.CustomerRepository;
 import com.emp.ems.Repositories.TransactionRepository;
+import com.emp.ems.Service.StatementJobService;
 import com.emp.ems.Service.StatementService;
+import com.emp.ems.Service.TransactionExportService;
+import com.emp.ems.dto.ExportFormat;
+import com.emp.ems.dto.StatementJob;
+import com.emp.ems.dto.StatementJobRequest;
+import com.emp.ems.dto.StatementPeriod;
+import com.emp.ems.dto.TransactionCursor;
 import com.emp.ems.dto.TransactionPageResponse;
+import com.emp.ems.dto.TransactionView;
 import com.emp.ems.entities.Account;
-import com.emp.ems.entities.Transaction;
 
 @CrossOrigin("*")
 @RestController
 @RequestMapping("/api/statements")
 public class StatementController {
 
+    // Servlet request attributes understood by Tomcat's NIO connector
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
     private final AccountRepository accountRepo;
+    private final CustomerRepository customerRepo;
     private final TransactionRepository transactionRepo;
     private final StatementService statementService;
+    private final TransactionExportService exportService;
+    private final StatementJobService jobService;
 
     public StatementController(AccountRepository accountRepo,
+                               CustomerRepository customerRepo,
                                TransactionRepository transactionRepo,
-                               StatementService statementService) {
+                               StatementService statementService,
+                               TransactionExportService exportService,
+                               StatementJobService jobService) {
         this.accountRepo = accountRepo;
+        this.customerRepo = customerRepo;
         this.transactionRepo = transactionRepo;
         this.statementService = statementService;
+        this.exportService = exportService;
+        this.jobService = jobService;
     }
 
+    // The PDF is written to the response as it is rendered, so heap use does not grow with history length.
+    // from/to (ISO dates, inclusive) or month (yyyy-MM) narrow it to a period; closed periods are
+    // rendered once into the on-disk statement cache and then served from the file.
     @GetMapping("/account/{id}")
-    public ResponseEntity<byte[]> downloadStatement(@PathVariable Long id) {
-        Account acc = accountRepo.findById(id).orElseThrow();
-        // Use findByAccount which properly handles deposit/withdraw
-        List<Transaction> txs = transactionRepo.findByAccount(acc);
+    public ResponseEntity<?> downloadStatement(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth month,
+            HttpServletRequest request) {
+        StatementPeriod period;
+        try {
+            period = StatementPeriod.of(from, to, month);
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage());
+        }
+        Account acc = accountRepo.findById(id).orElse(null);
+        if (acc == null) {
+            return accountNotFound(id);
+        }
+        String filename = "statement_" + id + (period.isAll() ? "" : "_" + period) + ".pdf";
 
-        byte[] pdfBytes = statementService.generateStatementPdf(acc, txs);
+        if (period.isClosedOn(LocalDate.now())) {
+            Path file = statementService.cachedStatementPdf(acc, period);
+            return sendFile(request, file, filename);
+        }
 
+        StreamingResponseBody body = out -> statementService.writeStatementPdf(acc, period, out);
         return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=statement_" + id + ".pdf")
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
+                .contentType(MediaType.APPLICATION_PDF)
+                .body(body);
+    }
+
+    // Renders in the background and returns 202 with the job to poll; 503 + Retry-After when
+    // the renderer queue is full. Same period fields as the synchronous download.
+    @PostMapping("/jobs")
+    public ResponseEntity<?> submitStatementJob(@RequestBody StatementJobRequest req) {
+        if (req.accountId == null) {
+            return badRequest("accountId is required.");
+        }
+        StatementPeriod period;
+        try {
+            period = StatementPeriod.of(req.from, req.to, req.month);
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage());
+        }
+        StatementJob job;
+        try {
+            job = jobService.submit(req.accountId, period);
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of(
+                "error", "Account not found",
+                "message", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "30")
+                    .body(Map.of(
+                        "error", "Service busy",
+                        "message", e.getMessage()));
+        }
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/statements/jobs/" + job.getId()))
+                .body(job);
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<?> getStatementJob(@PathVariable String jobId) {
+        StatementJob job = jobService.getJob(jobId);
+        if (job == null) {
+            return jobNotFound(jobId);
+        }
+        return ResponseEntity.ok(job);
+    }
+
+    @GetMapping("/jobs/{jobId}/file")
+    public ResponseEntity<?> downloadStatementJob(@PathVariable String jobId, HttpServletRequest request) {
+        StatementJob job = jobService.getJob(jobId);
+        if (job == null) {
+            return jobNotFound(jobId);
+        }
+        if (job.getStatus() != StatementJob.Status.DONE) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                "error", "Statement not ready",
+                "message", "Job " + jobId + " is " + job.getStatus() + "."));
+        }
+        Path file = job.getFile();
+        if (!Files.exists(file)) {
+            return ResponseEntity.status(HttpStatus.GONE).body(Map.of(
+                "error", "Statement expired",
+                "message", "The file for job " + jobId + " is no longer available; submit the job again."));
+        }
+        String filename = "statement_" + job.getAccountId() + "_" + job.getPeriod() + ".pdf";
+        return sendFile(request, file, filename);
+    }
+
+    private ResponseEntity<?> jobNotFound(String jobId) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of(
+            "error", "Job not found",
+            "message", "No statement job " + jobId + "."));
+    }
+
+    private static ResponseEntity<?> accountNotFound(Long id) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of(
+            "error", "Account not found",
+            "message", "No account " + id + "."));
+    }
+
+    // Raw export for reconciliation: format=csv|ndjson, same period parameters as the PDF.
+    // gzip=true downloads a .gz file; otherwise the body is gzip-encoded when the client accepts it.
+    @GetMapping("/account/{id}/export")
+    public ResponseEntity<?> exportAccountTransactions(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth month,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        ExportFormat fmt;
+        StatementPeriod period;
+        try {
+            fmt = ExportFormat.parse(format);
+            period = StatementPeriod.of(from, to, month);
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage());
+        }
+        if (!accountRepo.existsById(id)) {
+            return accountNotFound(id);
+        }
+        return export("transactions_account_" + id, period, fmt, gzip, acceptEncoding,
+                out -> exportService.exportAccount(id, period, fmt, out));
+    }
+
+    @GetMapping("/customer/{customerId}/export")
+    public ResponseEntity<?> exportCustomerTransactions(
+            @PathVariable Long customerId,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth month,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        ExportFormat fmt;
+        StatementPeriod period;
+        try {
+            fmt = ExportFormat.parse(format);
+            period = StatementPeriod.of(from, to, month);
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage());
+        }
+        if (!customerRepo.existsById(customerId)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of(
+                "error", "Customer not found",
+                "message", "No customer " + customerId + "."));
+        }
+        return export("transactions_customer_" + customerId, period, fmt, gzip, acceptEncoding,
+                out -> exportService.exportCustomer(customerId, period, fmt, out));
+    }
+
+    private ResponseEntity<StreamingResponseBody> export(String name, StatementPeriod period, ExportFormat format,
+                                                         boolean gzipFile, String acceptEncoding,
+                                                         StreamingResponseBody writer) {
+        String filename = name + (period.isAll() ? "" : "_" + period) + "." + format.getExtension();
+        boolean gzipEncoding = !gzipFile && acceptEncoding != null && acceptEncoding.contains("gzip");
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (gzipFile) {
+            response.contentType(MediaType.parseMediaType("application/gzip"));
+            filename += ".gz";
+        } else {
+            response.contentType(MediaType.parseMediaType(format.getContentType() + ";charset=UTF-8"));
+        }
+        if (gzipEncoding) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        response.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename);
+
+        if (!gzipFile && !gzipEncoding) {
+            return response.body(writer);
+        }
+        return response.body(out -> {
+            GZIPOutputStream gz = new GZIPOutputStream(out, 64 * 1024);
+            writer.writeTo(gz);
+            gz.finish();
+        });
+    }
+
+    // Hands the file to Tomcat's sendfile (kernel copy, no user-space buffers) when the connector
+    // supports it; otherwise it is copied to the response.
+    private ResponseEntity<StreamingResponseBody> sendFile(HttpServletRequest request, Path file, String filename) {
+        long length;
+        try {
+            length = Files.size(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
                 .contentType(MediaType.APPLICATION_PDF)
-                .body(pdfBytes);
+                .contentLength(length);
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, length);
+            return response.build();
+        }
+        return response.body(out -> Files.copy(file, out));
+    }
+
+    // Invalid from/to/month combinations, export format or job request
+    private static ResponseEntity<?> badRequest(String message) {
+        return ResponseEntity.badRequest().body(Map.of(
+            "error", message,
+            "message", message));
     }
 
-    // Get transactions for an account with pagination
+    // Get transactions for an account with pagination.
+    // Passing cursor (empty for the first page) switches to keyset paging on (createdAt, id);
+    // includeTotal=false skips the COUNT(*) query.
     @GetMapping("/account/{id}/transactions")
-    public ResponseEntity<TransactionPageResponse> getAccountTransactions(
+    public ResponseEntity<?> getAccountTransactions(
             @PathVariable Long id,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "true") boolean includeTotal) {
         
-        Account acc = accountRepo.findById(id).orElseThrow();
-        Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-        Page<Transaction> transactionPage = transactionRepo.findByAccount(acc, pageable);
-        
-        TransactionPageResponse response = new TransactionPageResponse(
-            transactionPage.getContent(),
-            transactionPage.getTotalPages(),
-            transactionPage.getTotalElements(),
-            transactionPage.getNumber(),
-            transactionPage.getSize(),
-            transactionPage.hasNext(),
-            transactionPage.hasPrevious()
-        );
-        
-        return ResponseEntity.ok(response);
+        if (!accountRepo.existsById(id)) {
+            return accountNotFound(id);
+        }
+
+        if (cursor != null) {
+            TransactionCursor after;
+            try {
+                after = TransactionCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of(
+                    "error", "Invalid cursor.",
+                    "message", "Invalid cursor."));
+            }
+            List<TransactionView> rows = transactionRepo.findByAccountBefore(id, after.createdAt(), after.id(), size + 1)
+                    .stream().map(TransactionView::of).toList();
+            Long total = includeTotal ? transactionRepo.countByAccount(id) : null;
+            return ResponseEntity.ok(TransactionPageResponse.seek(rows, size, after == TransactionCursor.START, total));
+        }
+
+        Pageable pageable = PageRequest.of(page, size);
+        long offset = pageable.getOffset();
+        List<TransactionView> rows = transactionRepo.findAccountFeedPage(id, offset + size + 1, size + 1, offset)
+                .stream().map(TransactionView::of).toList();
+        boolean hasNext = rows.size() > size;
+        List<TransactionView> content = hasNext ? rows.subList(0, size) : rows;
+        if (!includeTotal) {
+            return ResponseEntity.ok(TransactionPageResponse.of(new SliceImpl<>(content, pageable, hasNext)));
+        }
+        long total = transactionRepo.countByAccount(id);
+        return ResponseEntity.ok(TransactionPageResponse.of(new PageImpl<>(content, pageable, total)));
     }
 }
@@ -1,120 +1,132 @@
 package com.emp.ems.Controller;
 
 import java.util.List;
+import java.util.Map;
 
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import com.emp.ems.Repositories.AccountRepository;
 import com.emp.ems.Repositories.CustomerRepository;
 import com.emp.ems.Repositories.TransactionRepository;
+import com.emp.ems.Service.IdempotencyService;
 import com.emp.ems.Service.TransactionService;
+import com.emp.ems.ServiceImpl.AccountLookupCache;
+import com.emp.ems.dto.BatchTransferRequest;
 import com.emp.ems.dto.DepositRequest;
+import com.emp.ems.dto.TransactionCursor;
 import com.emp.ems.dto.TransactionPageResponse;
+import com.emp.ems.dto.TransactionView;
+import com.emp.ems.dto.TransferOutcome;
 import com.emp.ems.dto.WithdrawRequest;
 import com.emp.ems.dto.TransferRequest;
 import com.emp.ems.entities.Customer;
-import com.emp.ems.entities.Transaction;
+import com.emp.ems.entities.Money;
 
 @CrossOrigin("*")
 @RestController
 public class TransactionController {
 
+    private static final int MAX_BATCH_SIZE = 5000;
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
     private final TransactionService tran;
     private final TransactionRepository transactionRepo;
     private final CustomerRepository customerRepo;
-    private final AccountRepository accountRepo;
+    private final AccountLookupCache accountLookup;
+    private final IdempotencyService idempotency;
 
     public TransactionController(TransactionService tran, 
                                 TransactionRepository transactionRepo,
                                 CustomerRepository customerRepo,
-                                AccountRepository accountRepo) {
+                                AccountLookupCache accountLookup,
+                                IdempotencyService idempotency) {
         this.tran = tran;
         this.transactionRepo = transactionRepo;
         this.customerRepo = customerRepo;
-        this.accountRepo = accountRepo;
+        this.accountLookup = accountLookup;
+        this.idempotency = idempotency;
     }
 
-    // Existing POST endpoints - keeping backward compatibility
+    // Existing POST endpoints - keeping backward compatibility.
+    // An optional Idempotency-Key header makes client retries safe: a repeated key
+    // gets the original response back instead of moving money again.
     @PostMapping("/api/transaction/deposit")
-    public ResponseEntity<Boolean> deposit(@RequestBody DepositRequest req) {
+    public ResponseEntity<?> deposit(@RequestBody DepositRequest req,
+                                     @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        return idempotency.execute("deposit", idempotencyKey, req, () -> doDeposit(req), trim(req.accountNumber));
+    }
+
+    @PostMapping("/api/transaction/withdraw")
+    public ResponseEntity<?> withdraw(@RequestBody WithdrawRequest req,
+                                      @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        return idempotency.execute("withdraw", idempotencyKey, req, () -> doWithdraw(req), trim(req.accountNumber));
+    }
+
+    @PostMapping("/api/transaction/transfer")
+    public ResponseEntity<?> transfer(@RequestBody TransferRequest req,
+                                      @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        return idempotency.execute("transfer", idempotencyKey, req, () -> doTransfer(req),
+                trim(req.fromAccount), trim(req.toAccount));
+    }
+
+    private static String trim(String accountNumber) {
+        return accountNumber != null ? accountNumber.trim() : null;
+    }
+
+    private ResponseEntity<?> doDeposit(DepositRequest req) {
         // Trim account number to handle whitespace issues
         String accountNumber = req.accountNumber != null ? req.accountNumber.trim() : null;
-        if (accountNumber == null || accountRepo.findByAccountNumber(accountNumber) == null) {
+        if (accountLookup.find(accountNumber) == null) {
             return ResponseEntity.badRequest().build();
         }
-        return ResponseEntity.ok(tran.deposit(accountNumber, req.amount));
+        return ResponseEntity.ok(tran.deposit(accountNumber, Money.ofRupees(req.amount)));
     }
 
-    @PostMapping("/api/transaction/withdraw")
-    public ResponseEntity<Boolean> withdraw(@RequestBody WithdrawRequest req) {
+    private ResponseEntity<?> doWithdraw(WithdrawRequest req) {
         // Trim account number to handle whitespace issues
         String accountNumber = req.accountNumber != null ? req.accountNumber.trim() : null;
-        if (accountNumber == null || accountRepo.findByAccountNumber(accountNumber) == null) {
+        if (accountLookup.find(accountNumber) == null) {
             return ResponseEntity.badRequest().build();
         }
-        return ResponseEntity.ok(tran.withdraw(accountNumber, req.amount));
+        return ResponseEntity.ok(tran.withdraw(accountNumber, Money.ofRupees(req.amount)));
     }
 
-    @PostMapping("/api/transaction/transfer")
-    public ResponseEntity<?> transfer(@RequestBody TransferRequest req) {
+    private ResponseEntity<?> doTransfer(TransferRequest req) {
         try {
             // Trim account numbers to handle whitespace issues
             String fromAccount = req.fromAccount != null ? req.fromAccount.trim() : null;
             String toAccount = req.toAccount != null ? req.toAccount.trim() : null;
             
-            // Validate recipient account exists
-            if (toAccount == null || accountRepo.findByAccountNumber(toAccount) == null) {
-                return ResponseEntity.badRequest().body(new java.util.HashMap<String, String>() {{
-                    put("error", "Invalid recipient account number. Account \"" + (req.toAccount != null ? req.toAccount : "null") + "\" does not exist.");
-                    put("message", "Invalid recipient account number. Account \"" + (req.toAccount != null ? req.toAccount : "null") + "\" does not exist.");
-                }});
-            }
-            
-            // Validate sender account exists
-            if (fromAccount == null || accountRepo.findByAccountNumber(fromAccount) == null) {
-                return ResponseEntity.badRequest().body(new java.util.HashMap<String, String>() {{
-                    put("error", "Invalid sender account number. Account \"" + (req.fromAccount != null ? req.fromAccount : "null") + "\" does not exist.");
-                    put("message", "Invalid sender account number. Account \"" + (req.fromAccount != null ? req.fromAccount : "null") + "\" does not exist.");
-                }});
-            }
-            
-            boolean result = tran.transfer(fromAccount, toAccount, req.amount);
-            
-            if (!result) {
-                // Check specific failure reasons
-                var fromAccountEntity = accountRepo.findByAccountNumber(fromAccount);
-                var toAccountEntity = accountRepo.findByAccountNumber(toAccount);
-                
-                if (fromAccountEntity == null || toAccountEntity == null) {
+            // The service looks each account up once and reports why a transfer failed
+            TransferOutcome outcome = tran.transfer(fromAccount, toAccount, Money.ofRupees(req.amount));
+
+            switch (outcome.getStatus()) {
+                case UNKNOWN_TARGET:
                     return ResponseEntity.badRequest().body(new java.util.HashMap<String, String>() {{
-                        put("error", "One or both account numbers are invalid.");
-                        put("message", "One or both account numbers are invalid.");
+                        put("error", "Invalid recipient account number. Account \"" + (req.toAccount != null ? req.toAccount : "null") + "\" does not exist.");
+                        put("message", "Invalid recipient account number. Account \"" + (req.toAccount != null ? req.toAccount : "null") + "\" does not exist.");
                     }});
-                }
-                
-                if (req.amount <= 0) {
+                case UNKNOWN_SOURCE:
+                    return ResponseEntity.badRequest().body(new java.util.HashMap<String, String>() {{
+                        put("error", "Invalid sender account number. Account \"" + (req.fromAccount != null ? req.fromAccount : "null") + "\" does not exist.");
+                        put("message", "Invalid sender account number. Account \"" + (req.fromAccount != null ? req.fromAccount : "null") + "\" does not exist.");
+                    }});
+                case INVALID_AMOUNT:
                     return ResponseEntity.badRequest().body(new java.util.HashMap<String, String>() {{
                         put("error", "Transfer amount must be greater than 0.");
                         put("message", "Transfer amount must be greater than 0.");
                     }});
-                }
-                
-                if (req.amount > fromAccountEntity.getBalance()) {
+                case INSUFFICIENT_FUNDS:
                     return ResponseEntity.badRequest().body(new java.util.HashMap<String, String>() {{
-                        put("error", "Insufficient balance. Your account balance is ₹" + String.format("%.2f", fromAccountEntity.getBalance()) + ".");
-                        put("message", "Insufficient balance. Your account balance is ₹" + String.format("%.2f", fromAccountEntity.getBalance()) + ".");
+                        put("error", "Insufficient balance. Your account balance is ₹" + Money.format(outcome.getFromBalance()) + ".");
+                        put("message", "Insufficient balance. Your account balance is ₹" + Money.format(outcome.getFromBalance()) + ".");
                     }});
-                }
-                
-                return ResponseEntity.badRequest().body(new java.util.HashMap<String, String>() {{
-                    put("error", "Transfer failed. Please verify account numbers and balance.");
-                    put("message", "Transfer failed. Please verify account numbers and balance.");
-                }});
+                default:
+                    break;
             }
             
             return ResponseEntity.ok(new java.util.HashMap<String, Object>() {{
@@ -129,52 +141,95 @@ public class TransactionController {
         }
     }
 
-    // Get all transactions for a customer (with pagination)
+    // Batch transfers (payroll / settlement); at most MAX_BATCH_SIZE items per call
+    @PostMapping("/api/transaction/batch")
+    public ResponseEntity<?> batchTransfer(@RequestBody BatchTransferRequest req) {
+        if (req == null || req.transfers == null || req.transfers.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", "At least one transfer is required.",
+                "message", "At least one transfer is required."));
+        }
+        if (req.transfers.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", "A batch may contain at most " + MAX_BATCH_SIZE + " transfers.",
+                "message", "A batch may contain at most " + MAX_BATCH_SIZE + " transfers."));
+        }
+        return ResponseEntity.ok(tran.batchTransfer(req.transfers));
+    }
+
+    // Get all transactions for a customer (with pagination).
+    // Passing cursor (empty for the first page) switches to keyset paging on (createdAt, id);
+    // includeTotal=false skips the COUNT(*) query.
     @GetMapping("/api/transactions/customer/{customerId}")
     public ResponseEntity<?> getTransactionsByCustomer(
             @PathVariable Long customerId,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "true") boolean includeTotal) {
         
         Customer customer = customerRepo.findById(customerId)
                 .orElseThrow(() -> new RuntimeException("Customer not found"));
         
-        Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-        Page<Transaction> transactionPage = transactionRepo.findByCustomer(customer, pageable);
-        
-        TransactionPageResponse response = new TransactionPageResponse(
-            transactionPage.getContent(),
-            transactionPage.getTotalPages(),
-            transactionPage.getTotalElements(),
-            transactionPage.getNumber(),
-            transactionPage.getSize(),
-            transactionPage.hasNext(),
-            transactionPage.hasPrevious()
-        );
-        
-        return ResponseEntity.ok(response);
+        if (cursor != null) {
+            TransactionCursor after;
+            try {
+                after = TransactionCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                return invalidCursor();
+            }
+            List<TransactionView> rows = transactionRepo.findByCustomerBefore(
+                    customer.getId(), after.createdAt(), after.id(), size + 1)
+                    .stream().map(TransactionView::of).toList();
+            Long total = includeTotal ? transactionRepo.countByCustomer(customer.getId()) : null;
+            return ResponseEntity.ok(TransactionPageResponse.seek(rows, size, after == TransactionCursor.START, total));
+        }
+
+        Pageable pageable = PageRequest.of(page, size);
+        long offset = pageable.getOffset();
+        List<TransactionView> rows = transactionRepo.findCustomerFeedPage(customer.getId(), offset + size + 1, size + 1, offset)
+                .stream().map(TransactionView::of).toList();
+        boolean hasNext = rows.size() > size;
+        List<TransactionView> content = hasNext ? rows.subList(0, size) : rows;
+        if (!includeTotal) {
+            return ResponseEntity.ok(TransactionPageResponse.of(new SliceImpl<>(content, pageable, hasNext)));
+        }
+        long total = transactionRepo.countByCustomer(customer.getId());
+        return ResponseEntity.ok(TransactionPageResponse.of(new PageImpl<>(content, pageable, total)));
     }
 
-    // Get all transactions (for admin) with pagination
+    // Get all transactions (for admin) with pagination; same cursor / includeTotal options
     @GetMapping("/api/transactions")
     public ResponseEntity<?> getAllTransactions(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
-        
-        Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-        Page<Transaction> transactionPage = transactionRepo.findAll(pageable);
-        
-        TransactionPageResponse response = new TransactionPageResponse(
-            transactionPage.getContent(),
-            transactionPage.getTotalPages(),
-            transactionPage.getTotalElements(),
-            transactionPage.getNumber(),
-            transactionPage.getSize(),
-            transactionPage.hasNext(),
-            transactionPage.hasPrevious()
-        );
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "true") boolean includeTotal) {
         
-        return ResponseEntity.ok(response);
+        if (cursor != null) {
+            TransactionCursor after;
+            try {
+                after = TransactionCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                return invalidCursor();
+            }
+            List<TransactionView> rows = transactionRepo.findViewsBefore(
+                    after.createdAt(), after.id(), PageRequest.ofSize(size + 1));
+            Long total = includeTotal ? transactionRepo.count() : null;
+            return ResponseEntity.ok(TransactionPageResponse.seek(rows, size, after == TransactionCursor.START, total));
+        }
+
+        Pageable pageable = PageRequest.of(page, size);
+        if (!includeTotal) {
+            return ResponseEntity.ok(TransactionPageResponse.of(transactionRepo.findAllViewSlice(pageable)));
+        }
+        return ResponseEntity.ok(TransactionPageResponse.of(transactionRepo.findAllViews(pageable)));
+    }
+
+    private static ResponseEntity<?> invalidCursor() {
+        return ResponseEntity.badRequest().body(Map.of(
+            "error", "Invalid cursor.",
+            "message", "Invalid cursor."));
     }
 
 }
@@ -2,14 +2,44 @@ package com.emp.ems.Repositories;
 
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import com.emp.ems.dto.AccountMeta;
 import com.emp.ems.entities.Account;
 import com.emp.ems.entities.AccountType;
 
+import jakarta.persistence.LockModeType;
+
 public interface AccountRepository extends JpaRepository<Account, Long> {
 
     Account findByAccountNumber(String accountNumber);
 
     List<Account> findByType(AccountType type);
+
+    // Row locks (SELECT ... FOR UPDATE) for balance changes; callers lock in account-number order.
+    // No lock-timeout hint: InnoDB ignores it. In-JVM waits are bounded by AccountLockManager, row
+    // waits by the server's innodb_lock_wait_timeout.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.accountNumber = :accountNumber")
+    Account findByAccountNumberForUpdate(@Param("accountNumber") String accountNumber);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.id = :id")
+    Account findByIdForUpdate(@Param("id") Long id);
+
+    // Next partition of accounts by id, customer fetched in the same query (batch jobs)
+    @Query("SELECT a FROM Account a LEFT JOIN FETCH a.customer WHERE a.id > :afterId ORDER BY a.id")
+    List<Account> findPartitionAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    // Accounts a resumed statement batch has behind its checkpoint
+    long countByIdLessThanEqual(long id);
+
+    // Cacheable facts only (see AccountLookupCache); no balance, no customer entity
+    @Query("SELECT new com.emp.ems.dto.AccountMeta(a.id, a.accountNumber, a.type, a.customer.id, a.sortCode) " +
+           "FROM Account a WHERE a.accountNumber = :accountNumber")
+    AccountMeta findMetaByAccountNumber(@Param("accountNumber") String accountNumber);
 }
@@ -0,0 +1,68 @@
+package com.emp.ems.Repositories;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Plain-JDBC access for maturing fixed deposits in bulk, where loading each deposit with
+ * its eagerly fetched account and saving it back costs several round-trips per row.
+ * Deposits are locked before their linked accounts, the same order closing one deposit
+ * takes; the accounts themselves are locked through TransferBatchRepository.
+ */
+@Repository
+public class FixedDepositBatchRepository {
+
+    public record MaturingDeposit(long id, long principalMinor, double interestRate, LocalDate startDate,
+                                  LocalDate maturityDate, long linkedAccountId) { }
+
+    private final JdbcTemplate jdbc;
+    private final NamedParameterJdbcTemplate named;
+
+    public FixedDepositBatchRepository(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+        this.named = new NamedParameterJdbcTemplate(jdbc);
+    }
+
+    // SELECT ... FOR UPDATE over the deposits of a chunk that are still open
+    public List<MaturingDeposit> lockOpen(Collection<Long> ids) {
+        return named.query(
+                "SELECT id, principal_minor, interest_rate, start_date, maturity_date, linked_account_id " +
+                "FROM fixed_deposits WHERE id IN (:ids) AND closed = false ORDER BY id FOR UPDATE",
+                new MapSqlParameterSource("ids", ids),
+                (rs, i) -> new MaturingDeposit(rs.getLong(1), rs.getLong(2), rs.getDouble(3),
+                        rs.getObject(4, LocalDate.class), rs.getObject(5, LocalDate.class), rs.getLong(6)));
+    }
+
+    // Account numbers by id, unlocked; the caller locks them in account-number order
+    public Map<Long, String> findAccountNumbers(Collection<Long> accountIds) {
+        Map<Long, String> result = new HashMap<>(accountIds.size() * 2);
+        if (accountIds.isEmpty()) return result;
+        named.query("SELECT id, account_number FROM accounts WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", accountIds),
+                rs -> { result.put(rs.getLong(1), rs.getString(2)); });
+        return result;
+    }
+
+    // One batched UPDATE closing every deposit of the chunk with the interest it paid
+    public void markClosed(Map<Long, Long> interestById, LocalDateTime at) {
+        Timestamp ts = Timestamp.valueOf(at);
+        List<Object[]> args = new ArrayList<>(interestById.size());
+        for (Map.Entry<Long, Long> e : interestById.entrySet()) {
+            args.add(new Object[] { e.getValue(), ts, ts, e.getKey() });
+        }
+        jdbc.batchUpdate("UPDATE fixed_deposits SET closed = true, interest_minor = ?, closed_at = ?, updated_at = ? " +
+                "WHERE id = ?", args, new int[] { Types.BIGINT, Types.TIMESTAMP, Types.TIMESTAMP, Types.BIGINT });
+    }
+}
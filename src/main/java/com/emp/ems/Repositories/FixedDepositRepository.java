@@ -3,11 +3,30 @@ package com.emp.ems.Repositories;
 import java.time.LocalDate;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.emp.ems.entities.FixedDeposit;
 
+import jakarta.persistence.LockModeType;
+
 public interface FixedDepositRepository extends JpaRepository<FixedDeposit, Long> {
 
     List<FixedDeposit> findByClosedFalseAndMaturityDateBefore(LocalDate date);
+
+    // Keyset page of open deposits due by date, served from idx_fd_closed_maturity
+    @Query("SELECT f.id FROM FixedDeposit f WHERE f.closed = false AND f.maturityDate <= :date AND f.id > :afterId " +
+           "ORDER BY f.id")
+    List<Long> findMaturingIdsAfter(@Param("date") LocalDate date, @Param("afterId") long afterId, Pageable page);
+
+    long countByClosedFalseAndMaturityDateLessThanEqual(LocalDate date);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT f FROM FixedDeposit f WHERE f.id = :id")
+    FixedDeposit findByIdForUpdate(@Param("id") Long id);
+
+    List<FixedDeposit> findByLinkedAccountAccountNumberOrderByMaturityDate(String accountNumber);
 }
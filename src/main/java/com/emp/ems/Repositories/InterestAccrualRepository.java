@@ -0,0 +1,179 @@
+package com.emp.ems.Repositories;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.emp.ems.entities.Money;
+
+/**
+ * Set-based daily interest: one chunk of savings accounts (afterId, lastId] accrues a day of
+ * interest into interest_accruals with one INSERT of missing month rows and one UPDATE,
+ * instead of a ledger row and a balance update per account per day. Callers run a chunk's
+ * statements in one transaction, starting with {@link #lockChunk}; chunks are disjoint, so
+ * several can run at once.
+ *
+ * Month-end posting works the same way over the month's accrual rows: one INSERT ... SELECT
+ * of INTEREST transactions, one balance UPDATE, one UPDATE marking the rows posted.
+ *
+ * The interest expression is Money.dailyInterestMicros in SQL: the same double arithmetic,
+ * rounded half-even by ROUND on a DOUBLE (MySQL uses rint()). A month row sums micro-paise
+ * and its accrued_minor is that sum rounded the same way, as Money.microsToPaise does.
+ */
+@Repository
+public class InterestAccrualRepository {
+
+    // allocationSize of the transactions @TableGenerator
+    private static final int TRANSACTION_ID_BLOCK = 500;
+
+    private static final String INTEREST = "ROUND(a.balance_minor * a.interest_rate * " + Money.MICROS_PER_PAISA +
+            " / " + Money.DAYS_PER_YEAR + ")";
+
+    private static final String CHUNK = "a.id > ? AND a.id <= ? AND a.type = 'SAVINGS' AND " + INTEREST + " > 0";
+
+    // Accrual rows of one month (period_start = ?) with something left to post, in (afterId, lastId]
+    private static final String UNPOSTED = "i.period_start = ? AND i.account_id > ? AND i.account_id <= ? " +
+            "AND i.accrued_minor > i.posted_minor";
+
+    public record ChunkTotals(int accounts, long interestMinor) { }
+
+    private final JdbcTemplate jdbc;
+
+    public InterestAccrualRepository(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    // Last savings account id of the next chunk of at most size accounts after afterId; null when done
+    public Long findChunkEnd(long afterId, int size) {
+        List<Long> ids = jdbc.queryForList("SELECT id FROM accounts WHERE type = 'SAVINGS' AND id > ? " +
+                "ORDER BY id LIMIT 1 OFFSET ?", Long.class, afterId, size - 1);
+        if (!ids.isEmpty()) return ids.get(0);
+        return jdbc.queryForObject("SELECT MAX(id) FROM accounts WHERE type = 'SAVINGS' AND id > ?",
+                Long.class, afterId);
+    }
+
+    // Row-locks the accounts of the chunk that earn interest so their balances cannot move
+    // before the accrual UPDATE, and totals what they will accrue (in paise, for the run's stats)
+    public ChunkTotals lockChunk(long afterId, long lastId) {
+        List<Long> interest = jdbc.queryForList("SELECT " + INTEREST + " FROM accounts a WHERE " + CHUNK +
+                " ORDER BY a.id FOR UPDATE", Long.class, afterId, lastId);
+        long micros = 0;
+        for (Long i : interest) micros += i;
+        return new ChunkTotals(interest.size(), Money.microsToPaise(micros));
+    }
+
+    /**
+     * Takes count transaction ids for rows inserted outside Hibernate. The pooled generator
+     * hands out the block below the stored next_val, so raising it by count leaves the count
+     * ids right above the block in use free for us. Run it in its own short transaction before
+     * the posting chunk's, not inside it: the id_sequences row is locked until commit.
+     */
+    public long reserveTransactionIds(int count) {
+        jdbc.update("UPDATE id_sequences SET next_val = next_val + ? WHERE seq_name = 'transactions'", count);
+        Long next = jdbc.queryForObject("SELECT next_val FROM id_sequences WHERE seq_name = 'transactions'", Long.class);
+        return next - count - TRANSACTION_ID_BLOCK + 1;
+    }
+
+    // Adds the day's interest to each account's row for the month, creating rows the first day
+    public int accrueInterest(long afterId, long lastId, LocalDate day) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Date period = Date.valueOf(day.withDayOfMonth(1));
+        jdbc.update("INSERT INTO interest_accruals (account_id, period_start, accrued_micros, accrued_minor, " +
+                "posted_minor, days, created_at, updated_at) SELECT a.id, ?, 0, 0, 0, 0, ?, ? FROM accounts a WHERE " +
+                CHUNK + " AND NOT EXISTS (SELECT 1 FROM interest_accruals i WHERE i.account_id = a.id " +
+                "AND i.period_start = ?)", period, now, now, afterId, lastId, period);
+        // rows from before micro-paise were kept start from their whole paise
+        jdbc.update("UPDATE interest_accruals SET accrued_micros = accrued_minor * " + Money.MICROS_PER_PAISA +
+                " WHERE period_start = ? AND account_id > ? AND account_id <= ? AND accrued_micros IS NULL",
+                period, afterId, lastId);
+        // accrued_minor first: MySQL assigns left to right, so it still sees the old accrued_micros.
+        // Dividing by a DOUBLE literal keeps ROUND half-even.
+        String today = "(SELECT " + INTEREST + " FROM accounts a WHERE a.id = i.account_id)";
+        return jdbc.update("UPDATE interest_accruals i SET i.accrued_minor = ROUND((i.accrued_micros + " + today +
+                ") / " + Money.MICROS_PER_PAISA + "e0), i.accrued_micros = i.accrued_micros + " + today +
+                ", i.days = i.days + 1, i.last_accrual_date = ?, i.updated_at = ? WHERE i.period_start = ? " +
+                "AND i.account_id IN (SELECT a.id FROM accounts a WHERE " + CHUNK + ")",
+                Date.valueOf(day), now, period, afterId, lastId);
+    }
+
+    // Last account id of the next chunk of at most size accruals of the month left to post; null when done
+    public Long findPostingChunkEnd(LocalDate period, long afterId, int size) {
+        List<Long> ids = jdbc.queryForList("SELECT account_id FROM interest_accruals WHERE period_start = ? " +
+                "AND account_id > ? AND accrued_minor > posted_minor ORDER BY account_id LIMIT 1 OFFSET ?",
+                Long.class, Date.valueOf(period), afterId, size - 1);
+        if (!ids.isEmpty()) return ids.get(0);
+        return jdbc.queryForObject("SELECT MAX(account_id) FROM interest_accruals WHERE period_start = ? " +
+                "AND account_id > ? AND accrued_minor > posted_minor", Long.class, Date.valueOf(period), afterId);
+    }
+
+    // Unlocked count of the chunk's accruals left to post, for reserving transaction ids
+    public int countUnposted(LocalDate period, long afterId, long lastId) {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM interest_accruals i WHERE " + UNPOSTED,
+                Integer.class, Date.valueOf(period), afterId, lastId);
+    }
+
+    // Row-locks the chunk's accruals left to post and totals what they will credit
+    public ChunkTotals lockUnposted(LocalDate period, long afterId, long lastId) {
+        List<Long> amounts = jdbc.queryForList("SELECT i.accrued_minor - i.posted_minor FROM interest_accruals i " +
+                "WHERE " + UNPOSTED + " ORDER BY i.account_id FOR UPDATE", Long.class,
+                Date.valueOf(period), afterId, lastId);
+        long sum = 0;
+        for (Long a : amounts) sum += a;
+        return new ChunkTotals(amounts.size(), sum);
+    }
+
+    // One INTEREST transaction per account for what it accrued in the month, then the balances,
+    // then the rows marked posted; run after lockUnposted in the same transaction
+    public int postInterest(LocalDate period, long afterId, long lastId, long firstTxId, String description) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Date p = Date.valueOf(period);
+        int rows = jdbc.update("INSERT INTO transactions (id, type, amount_minor, description, status, " +
+                "to_account_id, to_customer_id, created_at, updated_at) " +
+                "SELECT ? + ROW_NUMBER() OVER (ORDER BY i.account_id) - 1, 'INTEREST', i.accrued_minor - i.posted_minor, " +
+                "?, 'SUCCESS', i.account_id, a.customer_id, ?, ? FROM interest_accruals i " +
+                "JOIN accounts a ON a.id = i.account_id WHERE " + UNPOSTED,
+                firstTxId, description, now, now, p, afterId, lastId);
+        jdbc.update("UPDATE accounts a SET a.balance_minor = a.balance_minor + (SELECT i.accrued_minor - i.posted_minor " +
+                "FROM interest_accruals i WHERE i.account_id = a.id AND i.period_start = ?), a.updated_at = ? " +
+                "WHERE a.id IN (SELECT i.account_id FROM interest_accruals i WHERE " + UNPOSTED + ")",
+                p, now, p, afterId, lastId);
+        jdbc.update("UPDATE interest_accruals i SET i.posted_minor = i.accrued_minor, i.posted_at = ?, i.updated_at = ? " +
+                "WHERE " + UNPOSTED, now, now, p, afterId, lastId);
+        return rows;
+    }
+
+    // Interest accrued on an account and not on its balance yet
+    public long findUnposted(long accountId) {
+        return jdbc.queryForObject("SELECT COALESCE(SUM(accrued_minor - posted_minor), 0) FROM interest_accruals " +
+                "WHERE account_id = ?", Long.class, accountId);
+    }
+
+    // The same for every account that has some
+    public Map<Long, Long> findAllUnposted() {
+        Map<Long, Long> unposted = new HashMap<>();
+        jdbc.query("SELECT account_id, SUM(accrued_minor - posted_minor) FROM interest_accruals " +
+                "WHERE accrued_minor > posted_minor GROUP BY account_id",
+                rs -> { unposted.put(rs.getLong(1), rs.getLong(2)); });
+        return unposted;
+    }
+
+    // Marks a planned range DONE with its totals; false if it was not PENDING (another node did it)
+    public boolean completeRange(long rangeId, ChunkTotals totals, long durationMs) {
+        return jdbc.update("UPDATE interest_run_ranges SET status = 'DONE', accounts = ?, interest_minor = ?, " +
+                "duration_ms = ? WHERE id = ? AND status = 'PENDING'",
+                totals.accounts(), totals.interestMinor(), durationMs, rangeId) == 1;
+    }
+
+    // Every range of the run ending at or below accountId is done; only ever moves up
+    public void advanceCheckpoint(long runId, long accountId) {
+        jdbc.update("UPDATE interest_runs SET checkpoint_account_id = ? WHERE id = ? AND checkpoint_account_id < ?",
+                accountId, runId, accountId);
+    }
+}
@@ -0,0 +1,21 @@
+package com.emp.ems.Repositories;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.emp.ems.entities.InterestRunRange;
+
+public interface InterestRunRangeRepository extends JpaRepository<InterestRunRange, Long> {
+
+    List<InterestRunRange> findByRunIdAndStatusOrderByRangeEnd(Long runId, String status);
+
+    long countByRunId(Long runId);
+
+    // [accounts, interest] credited by the finished ranges of a run
+    @Query("SELECT COALESCE(SUM(r.accounts), 0), COALESCE(SUM(r.interestMinor), 0) FROM InterestRunRange r " +
+           "WHERE r.runId = :runId AND r.status = 'DONE'")
+    List<Object[]> sumDone(@Param("runId") Long runId);
+}
@@ -0,0 +1,13 @@
+package com.emp.ems.Repositories;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.emp.ems.entities.InterestRun;
+
+public interface InterestRunRepository extends JpaRepository<InterestRun, Long> {
+
+    Optional<InterestRun> findByRunDate(LocalDate runDate);
+}
@@ -3,11 +3,54 @@ package com.emp.ems.Repositories;
 import java.time.LocalDateTime;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.emp.ems.entities.ScheduledTransaction;
 
+import jakarta.persistence.LockModeType;
+
 public interface ScheduledTransactionRepository extends JpaRepository<ScheduledTransaction, Long> {
 
-    List<ScheduledTransaction> findByActiveTrueAndNextExecutionBefore(LocalDateTime time);
+    // What the in-memory dispatch queue keeps per order
+    interface Due {
+        Long getId();
+        LocalDateTime getNextExecution();
+    }
+
+    long countByActiveTrueAndNextExecutionBefore(LocalDateTime time);
+
+    List<ScheduledTransaction> findBySuspendedTrueOrderByLastFailureAtDesc();
+
+    // One chunk of due, unclaimed ids in id order; pass the last id of the previous chunk (0 to start)
+    @Query("SELECT s.id FROM ScheduledTransaction s WHERE s.active = true AND s.nextExecution < :time " +
+           "AND (s.leaseExpiresAt IS NULL OR s.leaseExpiresAt < :time) AND s.id > :afterId ORDER BY s.id")
+    List<Long> findDueIdsAfter(@Param("time") LocalDateTime time, @Param("afterId") long afterId, Pageable pageable);
+
+    // Takes a lease on those of ids that are still due and not leased by anyone (or whose lease ran out).
+    // A conditional UPDATE, so concurrent nodes claiming the same ids each get a disjoint share.
+    @Modifying
+    @Query("UPDATE ScheduledTransaction s SET s.leaseOwner = :owner, s.leaseExpiresAt = :expires " +
+           "WHERE s.id IN :ids AND s.active = true AND s.nextExecution < :time " +
+           "AND (s.leaseExpiresAt IS NULL OR s.leaseExpiresAt < :time)")
+    int claim(@Param("ids") List<Long> ids, @Param("owner") String owner, @Param("time") LocalDateTime time,
+              @Param("expires") LocalDateTime expires);
+
+    @Query("SELECT s.id FROM ScheduledTransaction s WHERE s.id IN :ids AND s.leaseOwner = :owner ORDER BY s.id")
+    List<Long> findClaimed(@Param("ids") List<Long> ids, @Param("owner") String owner);
+
+    // Active orders due in [from, until), a chunk at a time in id order
+    @Query("SELECT s.id AS id, s.nextExecution AS nextExecution FROM ScheduledTransaction s " +
+           "WHERE s.active = true AND s.nextExecution >= :from AND s.nextExecution < :until " +
+           "AND s.id > :afterId ORDER BY s.id")
+    List<Due> findUpcomingAfter(@Param("from") LocalDateTime from, @Param("until") LocalDateTime until,
+                                @Param("afterId") long afterId, Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ScheduledTransaction s WHERE s.id = :id")
+    ScheduledTransaction findByIdForUpdate(@Param("id") Long id);
 }
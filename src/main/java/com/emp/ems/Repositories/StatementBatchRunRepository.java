@@ -0,0 +1,12 @@
+package com.emp.ems.Repositories;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.emp.ems.entities.StatementBatchRun;
+
+public interface StatementBatchRunRepository extends JpaRepository<StatementBatchRun, Long> {
+
+    Optional<StatementBatchRun> findByPeriod(String period);
+}
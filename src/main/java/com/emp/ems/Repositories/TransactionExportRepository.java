@@ -0,0 +1,111 @@
+package com.emp.ems.Repositories;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import com.emp.ems.dto.StatementPeriod;
+
+/**
+ * Forward-only, read-only cursors over transaction rows for the raw exports. Rows are
+ * handed to the callback straight from the ResultSet; nothing is collected. With MySQL
+ * Connector/J the default fetch size of Integer.MIN_VALUE streams the result row by row
+ * instead of buffering it in the driver (set a positive size with useCursorFetch=true to
+ * fetch in batches instead). An export holds two connections, one per side, until it finishes.
+ *
+ * Columns: 1 id, 2 created_at, 3 type, 4 status, 5 amount_minor,
+ * 6 from account number, 7 to account number, 8 description.
+ */
+@Repository
+public class TransactionExportRepository {
+
+    // One query per side, each a range scan on its (owner, created_at, id) index that returns
+    // rows in index order, so neither needs a sort. The "to" side drops rows the "from" side
+    // returns, so a transfer between two accounts of the owner appears once.
+    private static final String SELECT =
+            "SELECT t.id, t.created_at, t.type, t.status, t.amount_minor, " +
+            "fa.account_number, ta.account_number, t.description FROM transactions t " +
+            "LEFT JOIN accounts fa ON fa.id = t.from_account_id " +
+            "LEFT JOIN accounts ta ON ta.id = t.to_account_id WHERE ";
+
+    private static final String ORDER = " AND t.created_at >= ? AND t.created_at < ? ORDER BY t.created_at, t.id";
+
+    private static final String FROM_SIDE = SELECT + "t.from_%1$s_id = ?" + ORDER;
+
+    private static final String TO_SIDE = SELECT +
+            "t.to_%1$s_id = ? AND (t.from_%1$s_id IS NULL OR t.from_%1$s_id <> ?)" + ORDER;
+
+    private static final String[] BY_ACCOUNT = { String.format(FROM_SIDE, "account"), String.format(TO_SIDE, "account") };
+
+    private static final String[] BY_CUSTOMER = { String.format(FROM_SIDE, "customer"), String.format(TO_SIDE, "customer") };
+
+    private final JdbcTemplate jdbc;
+    private final int fetchSize;
+
+    public TransactionExportRepository(JdbcTemplate jdbc,
+                                       @Value("${bitbank.export.fetch-size:-2147483648}") int fetchSize) {
+        this.jdbc = jdbc;
+        this.fetchSize = fetchSize;
+    }
+
+    public void streamByAccount(long accountId, StatementPeriod period, RowCallbackHandler handler) {
+        stream(BY_ACCOUNT, accountId, period, handler);
+    }
+
+    // Uses the denormalized customer columns
+    public void streamByCustomer(long customerId, StatementPeriod period, RowCallbackHandler handler) {
+        stream(BY_CUSTOMER, customerId, period, handler);
+    }
+
+    // Merges the two sides on (created_at, id) as they stream. A streaming result holds its
+    // connection until it is read to the end, so each side runs on a connection of its own:
+    // outside a transaction every JdbcTemplate call borrows a fresh one from the pool.
+    private void stream(String[] sql, long ownerId, StatementPeriod period, RowCallbackHandler handler) {
+        jdbc.execute((ConnectionCallback<Void>) fromCon -> jdbc.execute((ConnectionCallback<Void>) toCon -> {
+            try (PreparedStatement from = prepare(fromCon, sql[0], period, ownerId);
+                 PreparedStatement to = prepare(toCon, sql[1], period, ownerId, ownerId);
+                 ResultSet f = from.executeQuery();
+                 ResultSet t = to.executeQuery()) {
+                boolean fNext = f.next();
+                boolean tNext = t.next();
+                while (fNext || tNext) {
+                    if (tNext && (!fNext || before(t, f))) {
+                        handler.processRow(t);
+                        tNext = t.next();
+                    } else {
+                        handler.processRow(f);
+                        fNext = f.next();
+                    }
+                }
+            }
+            return null;
+        }));
+    }
+
+    private PreparedStatement prepare(Connection con, String sql, StatementPeriod period, long... ownerIds)
+            throws SQLException {
+        PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        ps.setFetchSize(fetchSize);
+        int i = 1;
+        for (long ownerId : ownerIds) {
+            ps.setLong(i++, ownerId);
+        }
+        ps.setTimestamp(i++, Timestamp.valueOf(period.start()));
+        ps.setTimestamp(i, Timestamp.valueOf(period.end().createdAt()));
+        return ps;
+    }
+
+    // Whether a's current row sorts before b's on (created_at, id); created_at is never null in the period
+    private static boolean before(ResultSet a, ResultSet b) throws SQLException {
+        int c = a.getTimestamp(2).compareTo(b.getTimestamp(2));
+        return c < 0 || (c == 0 && a.getLong(1) < b.getLong(1));
+    }
+}
@@ -1,43 +1,202 @@
 package com.emp.ems.Repositories;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import com.emp.ems.dto.StatementLine;
+import com.emp.ems.dto.TransactionView;
 import com.emp.ems.entities.Account;
-import com.emp.ems.entities.Customer;
 import com.emp.ems.entities.Transaction;
 
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
 
+    String VIEW = "SELECT new com.emp.ems.dto.TransactionView(t.id, t.type, t.amountMinor, t.status, t.createdAt, " +
+                  "f.id, f.accountNumber, ta.id, ta.accountNumber) " +
+                  "FROM Transaction t LEFT JOIN t.fromAccount f LEFT JOIN t.toAccount ta ";
+
+    // Outer select of the native customer feed: joins accounts only for the rows of the page
+    String FEED_ROW = "SELECT u.id AS id, u.type AS type, u.amount_minor AS amountMinor, u.status AS status, " +
+                      "u.created_at AS createdAt, u.from_account_id AS fromAccountId, fa.account_number AS fromAccountNumber, " +
+                      "u.to_account_id AS toAccountId, ta.account_number AS toAccountNumber FROM (";
+
+    String FEED_JOIN = ") u LEFT JOIN accounts fa ON fa.id = u.from_account_id " +
+                       "LEFT JOIN accounts ta ON ta.id = u.to_account_id ";
+
     List<Transaction> findByFromAccountOrToAccount(Account from, Account to);
     
-    // Fixed query to handle null accounts for deposit/withdraw
+    // Customer feed. Uses the denormalized from/to customer columns; a transfer between
+    // two accounts of the same customer matches both sides but is returned once.
     @Query("SELECT t FROM Transaction t WHERE " +
-           "(t.fromAccount IS NOT NULL AND t.fromAccount.customer = :customer) OR " +
-           "(t.toAccount IS NOT NULL AND t.toAccount.customer = :customer) " +
-           "ORDER BY t.createdAt DESC")
-    List<Transaction> findByCustomer(@Param("customer") Customer customer);
-    
-    // Paginated version
-    @Query("SELECT t FROM Transaction t WHERE " +
-           "(t.fromAccount IS NOT NULL AND t.fromAccount.customer = :customer) OR " +
-           "(t.toAccount IS NOT NULL AND t.toAccount.customer = :customer) " +
-           "ORDER BY t.createdAt DESC")
-    Page<Transaction> findByCustomer(@Param("customer") Customer customer, Pageable pageable);
-    
+           "t.fromCustomerId = :customerId OR t.toCustomerId = :customerId " +
+           "ORDER BY t.createdAt DESC, t.id DESC")
+    List<Transaction> findByCustomer(@Param("customerId") Long customerId);
+
+    // Paged customer feed as a UNION ALL of two index-driven branches, each served in order
+    // from (from_customer_id|to_customer_id, created_at, id); only 2 * window rows (window =
+    // offset + limit) reach the merge sort. The second branch drops rows the first already returned.
+    @Query(value = FEED_ROW +
+           "(SELECT t.* FROM transactions t WHERE t.from_customer_id = :customerId " +
+           "ORDER BY t.created_at DESC, t.id DESC LIMIT :window) " +
+           "UNION ALL " +
+           "(SELECT t.* FROM transactions t WHERE t.to_customer_id = :customerId " +
+           "AND (t.from_customer_id IS NULL OR t.from_customer_id <> :customerId) " +
+           "ORDER BY t.created_at DESC, t.id DESC LIMIT :window)" +
+           FEED_JOIN + "ORDER BY u.created_at DESC, u.id DESC LIMIT :limit OFFSET :offset",
+           nativeQuery = true)
+    List<TransactionView.Row> findCustomerFeedPage(@Param("customerId") Long customerId,
+                                                   @Param("window") long window,
+                                                   @Param("limit") int limit,
+                                                   @Param("offset") long offset);
+
+    // Keyset variant of the customer feed; same two-branch shape as findCustomerFeedPage
+    @Query(value = FEED_ROW +
+           "(SELECT t.* FROM transactions t WHERE t.from_customer_id = :customerId " +
+           "AND (t.created_at < :createdAt OR (t.created_at = :createdAt AND t.id < :id)) " +
+           "ORDER BY t.created_at DESC, t.id DESC LIMIT :limit) " +
+           "UNION ALL " +
+           "(SELECT t.* FROM transactions t WHERE t.to_customer_id = :customerId " +
+           "AND (t.from_customer_id IS NULL OR t.from_customer_id <> :customerId) " +
+           "AND (t.created_at < :createdAt OR (t.created_at = :createdAt AND t.id < :id)) " +
+           "ORDER BY t.created_at DESC, t.id DESC LIMIT :limit)" +
+           FEED_JOIN + "ORDER BY u.created_at DESC, u.id DESC LIMIT :limit",
+           nativeQuery = true)
+    List<TransactionView.Row> findByCustomerBefore(@Param("customerId") Long customerId,
+                                                   @Param("createdAt") LocalDateTime createdAt,
+                                                   @Param("id") long id,
+                                                   @Param("limit") int limit);
+
+    // Two index range counts instead of a join over accounts
+    @Query(value = "SELECT " +
+           "(SELECT COUNT(*) FROM transactions WHERE from_customer_id = :customerId) + " +
+           "(SELECT COUNT(*) FROM transactions WHERE to_customer_id = :customerId " +
+           "AND (from_customer_id IS NULL OR from_customer_id <> :customerId))",
+           nativeQuery = true)
+    long countByCustomer(@Param("customerId") Long customerId);
+
     @Query("SELECT t FROM Transaction t WHERE " +
            "(t.fromAccount = :account OR t.toAccount = :account) " +
            "ORDER BY t.createdAt DESC")
     List<Transaction> findByAccount(@Param("account") Account account);
-    
-    // Paginated version for account
-    @Query("SELECT t FROM Transaction t WHERE " +
-           "(t.fromAccount = :account OR t.toAccount = :account) " +
-           "ORDER BY t.createdAt DESC")
-    Page<Transaction> findByAccount(@Param("account") Account account, Pageable pageable);
+
+    // Paginated views for the list endpoints (newest first)
+    @Query(value = VIEW + "ORDER BY t.createdAt DESC, t.id DESC",
+           countQuery = "SELECT COUNT(t) FROM Transaction t")
+    Page<TransactionView> findAllViews(Pageable pageable);
+
+    @Query(VIEW + "ORDER BY t.createdAt DESC, t.id DESC")
+    Slice<TransactionView> findAllViewSlice(Pageable pageable);
+
+    // Paged account feed; same two-branch shape as findCustomerFeedPage, one branch per
+    // (from_account_id|to_account_id, created_at, id) index. A transfer to itself is returned once.
+    @Query(value = FEED_ROW +
+           "(SELECT t.* FROM transactions t WHERE t.from_account_id = :accountId " +
+           "ORDER BY t.created_at DESC, t.id DESC LIMIT :window) " +
+           "UNION ALL " +
+           "(SELECT t.* FROM transactions t WHERE t.to_account_id = :accountId " +
+           "AND (t.from_account_id IS NULL OR t.from_account_id <> :accountId) " +
+           "ORDER BY t.created_at DESC, t.id DESC LIMIT :window)" +
+           FEED_JOIN + "ORDER BY u.created_at DESC, u.id DESC LIMIT :limit OFFSET :offset",
+           nativeQuery = true)
+    List<TransactionView.Row> findAccountFeedPage(@Param("accountId") Long accountId,
+                                                  @Param("window") long window,
+                                                  @Param("limit") int limit,
+                                                  @Param("offset") long offset);
+
+    // Keyset (seek) pages ordered by (createdAt, id) DESC: rows strictly after the cursor.
+    // Pass an unsorted Pageable of size + 1; a List return type means no COUNT query.
+    @Query(VIEW + "WHERE (t.createdAt < :createdAt OR (t.createdAt = :createdAt AND t.id < :id)) " +
+           "ORDER BY t.createdAt DESC, t.id DESC")
+    List<TransactionView> findViewsBefore(@Param("createdAt") LocalDateTime createdAt,
+                                          @Param("id") long id, Pageable pageable);
+
+    // Keyset variant of the account feed
+    @Query(value = FEED_ROW +
+           "(SELECT t.* FROM transactions t WHERE t.from_account_id = :accountId " +
+           "AND (t.created_at < :createdAt OR (t.created_at = :createdAt AND t.id < :id)) " +
+           "ORDER BY t.created_at DESC, t.id DESC LIMIT :limit) " +
+           "UNION ALL " +
+           "(SELECT t.* FROM transactions t WHERE t.to_account_id = :accountId " +
+           "AND (t.from_account_id IS NULL OR t.from_account_id <> :accountId) " +
+           "AND (t.created_at < :createdAt OR (t.created_at = :createdAt AND t.id < :id)) " +
+           "ORDER BY t.created_at DESC, t.id DESC LIMIT :limit)" +
+           FEED_JOIN + "ORDER BY u.created_at DESC, u.id DESC LIMIT :limit",
+           nativeQuery = true)
+    List<TransactionView.Row> findByAccountBefore(@Param("accountId") Long accountId,
+                                                  @Param("createdAt") LocalDateTime createdAt,
+                                                  @Param("id") long id,
+                                                  @Param("limit") int limit);
+
+    // Statement rows for one account, newest first, one keyset chunk at a time. Same two branches
+    // as the account feed; the lower bound keeps each a range scan on (from|to_account_id, created_at).
+    @Query(value = "SELECT u.id AS id, u.created_at AS createdAt, u.type AS type, u.description AS description, " +
+           "u.amount_minor AS amountMinor, u.status AS status, fa.account_number AS fromAccountNumber, " +
+           "ta.account_number AS toAccountNumber FROM (" +
+           "(SELECT t.* FROM transactions t WHERE t.from_account_id = :accountId AND t.created_at >= :since " +
+           "AND (t.created_at < :createdAt OR (t.created_at = :createdAt AND t.id < :id)) " +
+           "ORDER BY t.created_at DESC, t.id DESC LIMIT :limit) " +
+           "UNION ALL " +
+           "(SELECT t.* FROM transactions t WHERE t.to_account_id = :accountId " +
+           "AND (t.from_account_id IS NULL OR t.from_account_id <> :accountId) AND t.created_at >= :since " +
+           "AND (t.created_at < :createdAt OR (t.created_at = :createdAt AND t.id < :id)) " +
+           "ORDER BY t.created_at DESC, t.id DESC LIMIT :limit)" +
+           FEED_JOIN + "ORDER BY u.created_at DESC, u.id DESC LIMIT :limit",
+           nativeQuery = true)
+    List<StatementLine.Row> findStatementLinesBefore(@Param("accountId") Long accountId,
+                                                     @Param("since") LocalDateTime since,
+                                                     @Param("createdAt") LocalDateTime createdAt,
+                                                     @Param("id") long id,
+                                                     @Param("limit") int limit);
+
+    // Month-end batch: every statement row for a contiguous range of account ids in one query, one
+    // index range scan per side. A transfer between two accounts of the range appears once per
+    // account; rows come grouped by account, each group in statement order.
+    @Query(value = "SELECT u.owner_id AS accountId, u.id AS id, u.created_at AS createdAt, u.type AS type, " +
+           "u.description AS description, u.amount_minor AS amountMinor, u.status AS status, " +
+           "fa.account_number AS fromAccountNumber, ta.account_number AS toAccountNumber FROM (" +
+           "SELECT t.from_account_id AS owner_id, t.* FROM transactions t " +
+           "WHERE t.from_account_id BETWEEN :firstId AND :lastId " +
+           "AND t.created_at >= :start AND t.created_at < :end " +
+           "UNION ALL " +
+           "SELECT t.to_account_id AS owner_id, t.* FROM transactions t " +
+           "WHERE t.to_account_id BETWEEN :firstId AND :lastId " +
+           "AND (t.from_account_id IS NULL OR t.from_account_id <> t.to_account_id) " +
+           "AND t.created_at >= :start AND t.created_at < :end" +
+           FEED_JOIN + "ORDER BY u.owner_id, u.created_at DESC, u.id DESC",
+           nativeQuery = true)
+    List<StatementLine.Row> findStatementLinesForAccounts(@Param("firstId") long firstId,
+                                                         @Param("lastId") long lastId,
+                                                         @Param("start") LocalDateTime start,
+                                                         @Param("end") LocalDateTime end);
+
+    // Id of the newest transaction in a statement range; part of the rendered-statement cache key.
+    // The newest row of each side, then the newer of the two.
+    @Query(value = "SELECT u.id FROM (" +
+           "(SELECT t.id, t.created_at FROM transactions t WHERE t.from_account_id = :accountId " +
+           "AND t.created_at >= :since AND (t.created_at < :createdAt OR (t.created_at = :createdAt AND t.id < :id)) " +
+           "ORDER BY t.created_at DESC, t.id DESC LIMIT 1) " +
+           "UNION ALL " +
+           "(SELECT t.id, t.created_at FROM transactions t WHERE t.to_account_id = :accountId " +
+           "AND t.created_at >= :since AND (t.created_at < :createdAt OR (t.created_at = :createdAt AND t.id < :id)) " +
+           "ORDER BY t.created_at DESC, t.id DESC LIMIT 1)" +
+           ") u ORDER BY u.created_at DESC, u.id DESC LIMIT 1",
+           nativeQuery = true)
+    List<Long> findLastStatementTxId(@Param("accountId") Long accountId,
+                                     @Param("since") LocalDateTime since,
+                                     @Param("createdAt") LocalDateTime createdAt,
+                                     @Param("id") long id);
+
+    // Two index range counts, as countByCustomer
+    @Query(value = "SELECT " +
+           "(SELECT COUNT(*) FROM transactions WHERE from_account_id = :accountId) + " +
+           "(SELECT COUNT(*) FROM transactions WHERE to_account_id = :accountId " +
+           "AND (from_account_id IS NULL OR from_account_id <> :accountId))",
+           nativeQuery = true)
+    long countByAccount(@Param("accountId") Long accountId);
 }
@@ -0,0 +1,73 @@
+package com.emp.ems.Repositories;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Plain-JDBC balance access for bulk money movement (batch transfers), where
+ * loading full {@code Account} entities and saving them one by one costs a
+ * round-trip per row. Reads lock rows in account-number order, the same order
+ * the single transfer path uses. Transaction rows are still inserted through
+ * JPA so they get ids from the pooled generator.
+ */
+@Repository
+public class TransferBatchRepository {
+
+    private final JdbcTemplate jdbc;
+    private final NamedParameterJdbcTemplate named;
+
+    public TransferBatchRepository(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+        this.named = new NamedParameterJdbcTemplate(jdbc);
+    }
+
+    /** Mutable balance snapshot of a locked account row. */
+    public static class LockedBalance {
+        public final long id;
+        public final Long customerId;
+        public long balance;
+        public boolean dirty;
+
+        LockedBalance(long id, Long customerId, long balance) {
+            this.id = id;
+            this.customerId = customerId;
+            this.balance = balance;
+        }
+    }
+
+    // SELECT ... FOR UPDATE over every account in one IN query
+    public Map<String, LockedBalance> lockBalances(Collection<String> accountNumbers) {
+        Map<String, LockedBalance> result = new HashMap<>(accountNumbers.size() * 2);
+        if (accountNumbers.isEmpty()) return result;
+
+        named.query(
+                "SELECT id, account_number, balance_minor, customer_id FROM accounts " +
+                "WHERE account_number IN (:numbers) ORDER BY account_number FOR UPDATE",
+                new MapSqlParameterSource("numbers", accountNumbers),
+                rs -> {
+                    result.put(rs.getString(2), new LockedBalance(rs.getLong(1), rs.getObject(4, Long.class), rs.getLong(3)));
+                });
+        return result;
+    }
+
+    public void updateBalances(Collection<LockedBalance> balances) {
+        List<Object[]> args = new ArrayList<>(balances.size());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (LockedBalance b : balances) {
+            if (b.dirty) args.add(new Object[] { b.balance, now, b.id });
+        }
+        jdbc.batchUpdate("UPDATE accounts SET balance_minor = ?, updated_at = ? WHERE id = ?",
+                args, new int[] { Types.BIGINT, Types.TIMESTAMP, Types.BIGINT });
+    }
+}
@@ -0,0 +1,22 @@
+package com.emp.ems.Service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import com.emp.ems.dto.FixedDepositRequest;
+import com.emp.ems.entities.FixedDeposit;
+
+public interface FixedDepositService {
+
+    FixedDeposit open(FixedDepositRequest req);
+
+    // Early closure; pays interest for the days held at the reduced premature rate
+    FixedDeposit close(Long id);
+
+    FixedDeposit getFixedDeposit(Long id);
+
+    List<FixedDeposit> getForAccount(String accountNumber);
+
+    // Pays out every open deposit maturing on or before date; returns how many
+    int matureDue(LocalDate date);
+}
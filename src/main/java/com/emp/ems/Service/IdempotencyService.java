@@ -0,0 +1,15 @@
+package com.emp.ems.Service;
+
+import java.util.function.Supplier;
+
+import org.springframework.http.ResponseEntity;
+
+public interface IdempotencyService {
+
+    // Runs the action once per (endpoint, key); repeats of the same request get the stored 2xx
+    // response back, a different request under the same key gets a 422.
+    // A null/blank key disables the check. The stripes of the given accounts (those the action
+    // moves money on) are held until the claim and the action have committed together.
+    ResponseEntity<?> execute(String endpoint, String key, Object request, Supplier<ResponseEntity<?>> action,
+                              String... accountNumbers);
+}
@@ -1,6 +1,7 @@
 package com.emp.ems.Service;
 
 public interface OtpService {
+    // Throws IllegalStateException when too many codes are pending
     String generateOtp(String email);
     boolean validateOtp(String email, String otp);
 }
@@ -12,4 +12,7 @@ public interface ScheduledTransactionService {
     void cancelScheduledTransaction(Long id);
 
     List<ScheduledTransaction> getAll();
+
+    // Orders switched off after too many failed attempts, most recent first
+    List<ScheduledTransaction> getSuspended();
 }
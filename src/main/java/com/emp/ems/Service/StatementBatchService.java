@@ -0,0 +1,14 @@
+package com.emp.ems.Service;
+
+import java.time.YearMonth;
+
+import com.emp.ems.entities.StatementBatchRun;
+
+public interface StatementBatchService {
+
+    // Starts (or resumes) the statement run for a month that has ended and returns at once;
+    // IllegalArgumentException for an open month, IllegalStateException if a run is active.
+    StatementBatchRun start(YearMonth month);
+
+    StatementBatchRun getRun(Long id);
+}
@@ -0,0 +1,14 @@
+package com.emp.ems.Service;
+
+import com.emp.ems.dto.StatementJob;
+import com.emp.ems.dto.StatementPeriod;
+
+public interface StatementJobService {
+
+    // Queues a render and returns at once. NoSuchElementException for an unknown account,
+    // IllegalStateException when the renderer queue is full (admission control).
+    StatementJob submit(Long accountId, StatementPeriod period);
+
+    // null if the id is unknown or the job has expired
+    StatementJob getJob(String id);
+}
@@ -1,11 +1,21 @@
 package com.emp.ems.Service;
 
+import java.io.OutputStream;
+import java.nio.file.Path;
 import java.util.List;
 
+import com.emp.ems.dto.StatementLine;
+import com.emp.ems.dto.StatementPeriod;
 import com.emp.ems.entities.Account;
-import com.emp.ems.entities.Transaction;
 
 public interface StatementService {
 
-    byte[] generateStatementPdf(Account account, List<Transaction> transactions);
+    // Writes the PDF statement straight to out, reading the account's transactions in chunks
+    void writeStatementPdf(Account account, StatementPeriod period, OutputStream out);
+
+    // Same layout from rows the caller already loaded (newest first), e.g. by the month-end batch
+    void writeStatementPdf(Account account, StatementPeriod period, List<StatementLine> lines, OutputStream out);
+
+    // Rendered PDF for a closed period, from the on-disk cache when it is still current
+    Path cachedStatementPdf(Account account, StatementPeriod period);
 }
@@ -0,0 +1,14 @@
+package com.emp.ems.Service;
+
+import java.io.OutputStream;
+
+import com.emp.ems.dto.ExportFormat;
+import com.emp.ems.dto.StatementPeriod;
+
+public interface TransactionExportService {
+
+    // Streams every transaction of the account in the period (oldest first) to out
+    void exportAccount(Long accountId, StatementPeriod period, ExportFormat format, OutputStream out);
+
+    void exportCustomer(Long customerId, StatementPeriod period, ExportFormat format, OutputStream out);
+}
@@ -1,10 +1,20 @@
 package com.emp.ems.Service;
 
+import java.util.List;
+
+import com.emp.ems.dto.BatchTransferResponse;
+import com.emp.ems.dto.TransferOutcome;
+import com.emp.ems.dto.TransferRequest;
+
+// Amounts are in paise (see Money)
 public interface TransactionService {
 
-    boolean transfer(String fromAcc, String toAcc, double amount);
+    TransferOutcome transfer(String fromAcc, String toAcc, long amount);
+
+    boolean deposit(String accountNumber, long amount);
 
-    boolean deposit(String accountNumber, double amount);
+    boolean withdraw(String accountNumber, long amount);
 
-    boolean withdraw(String accountNumber, double amount);
+    // Applies all transfers in one DB transaction; each item succeeds or fails on its own
+    BatchTransferResponse batchTransfer(List<TransferRequest> transfers);
 }
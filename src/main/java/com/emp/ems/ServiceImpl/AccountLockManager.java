@@ -0,0 +1,83 @@
+package com.emp.ems.ServiceImpl;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Striped in-JVM locks keyed by account number.
+ *
+ * Stripes are always taken in ascending stripe order, so two callers that
+ * touch the same pair of accounts (A→B and B→A) can never deadlock. Waits are
+ * bounded; a caller that cannot get its stripes in time gets an
+ * {@link IllegalStateException} instead of hanging a request thread.
+ */
+@Component
+public class AccountLockManager {
+
+    private final ReentrantLock[] stripes;
+    private final long timeoutMs;
+
+    public AccountLockManager(@Value("${bitbank.account-lock.stripes:1024}") int stripeCount,
+                              @Value("${bitbank.account-lock.timeout-ms:3000}") long timeoutMs) {
+        // round up to a power of two so the stripe index is a cheap mask
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * Runs {@code work} while holding the stripes of every given account.
+     */
+    public <T> T withLocks(Supplier<T> work, String... accountNumbers) {
+        int[] order = stripeOrder(accountNumbers);
+        int held = 0;
+        try {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+            for (int idx : order) {
+                long remaining = deadline - System.nanoTime();
+                if (!stripes[idx].tryLock(Math.max(0, remaining), TimeUnit.NANOSECONDS)) {
+                    throw new IllegalStateException("Account is busy, please retry");
+                }
+                held++;
+            }
+            return work.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for account lock");
+        } finally {
+            for (int i = held - 1; i >= 0; i--) {
+                stripes[order[i]].unlock();
+            }
+        }
+    }
+
+    private int[] stripeOrder(String... accountNumbers) {
+        int[] idx = new int[accountNumbers.length];
+        for (int i = 0; i < accountNumbers.length; i++) {
+            idx[i] = stripeFor(accountNumbers[i]);
+        }
+        Arrays.sort(idx);
+        // drop duplicates: both accounts may hash to the same stripe
+        int n = 0;
+        for (int i = 0; i < idx.length; i++) {
+            if (n == 0 || idx[n - 1] != idx[i]) {
+                idx[n++] = idx[i];
+            }
+        }
+        return n == idx.length ? idx : Arrays.copyOf(idx, n);
+    }
+
+    private int stripeFor(String accountNumber) {
+        int h = accountNumber == null ? 0 : accountNumber.hashCode();
+        h ^= (h >>> 16);
+        return h & (stripes.length - 1);
+    }
+}
@@ -0,0 +1,93 @@
+package com.emp.ems.ServiceImpl;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.emp.ems.Repositories.AccountRepository;
+import com.emp.ems.dto.AccountMeta;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Near cache for account-number lookups (account number → id, type, customer, sort code).
+ *
+ * Balances are never cached: money paths still lock the row, but by primary key using
+ * the cached id. Entries expire after a TTL and the map is capped; unknown numbers are
+ * not cached, so a newly opened account is visible immediately. Callers that change
+ * account metadata or delete accounts must evict. Hit/miss counts are published as
+ * {@code bitbank.account.cache} (tag {@code result}).
+ */
+@Component
+public class AccountLookupCache {
+
+    private final AccountRepository repo;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private final long ttlNanos;
+    private final Counter hits;
+    private final Counter misses;
+
+    private record Entry(AccountMeta meta, long expiresAt) { }
+
+    public AccountLookupCache(AccountRepository repo, MeterRegistry registry,
+                              @Value("${bitbank.account-cache.max-size:100000}") int maxSize,
+                              @Value("${bitbank.account-cache.ttl-minutes:30}") long ttlMinutes) {
+        this.repo = repo;
+        this.maxSize = maxSize;
+        this.ttlNanos = TimeUnit.MINUTES.toNanos(ttlMinutes);
+        this.hits = Counter.builder("bitbank.account.cache").tag("result", "hit").register(registry);
+        this.misses = Counter.builder("bitbank.account.cache").tag("result", "miss").register(registry);
+        Gauge.builder("bitbank.account.cache.size", entries, Map::size).register(registry);
+    }
+
+    /** Returns the account's metadata, or null if no such account exists. */
+    public AccountMeta find(String accountNumber) {
+        if (accountNumber == null) return null;
+
+        Entry e = entries.get(accountNumber);
+        if (e != null && System.nanoTime() - e.expiresAt() < 0) {
+            hits.increment();
+            return e.meta();
+        }
+        misses.increment();
+
+        AccountMeta meta = repo.findMetaByAccountNumber(accountNumber);
+        if (meta == null) {
+            entries.remove(accountNumber);
+            return null;
+        }
+        if (entries.size() >= maxSize) {
+            shrink();
+        }
+        entries.put(accountNumber, new Entry(meta, System.nanoTime() + ttlNanos));
+        return meta;
+    }
+
+    public void evict(String accountNumber) {
+        if (accountNumber != null) entries.remove(accountNumber);
+    }
+
+    // Customer deletion cascades to its accounts
+    public void evictCustomer(Long customerId) {
+        entries.values().removeIf(e -> customerId.equals(e.meta().customerId()));
+    }
+
+    // Drop expired entries first; if still full, drop an arbitrary tenth
+    private void shrink() {
+        long now = System.nanoTime();
+        entries.values().removeIf(e -> now - e.expiresAt() >= 0);
+        int toDrop = entries.size() - maxSize + Math.max(1, maxSize / 10);
+        Iterator<String> it = entries.keySet().iterator();
+        while (toDrop-- > 0 && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+}
@@ -1,10 +1,12 @@
 package com.emp.ems.ServiceImpl;
 
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.stereotype.Service;
 
 import com.emp.ems.Repositories.AccountRepository;
+import com.emp.ems.Repositories.InterestAccrualRepository;
 import com.emp.ems.Service.AccountService;
 import com.emp.ems.entities.Account;
 
@@ -12,9 +14,14 @@ import com.emp.ems.entities.Account;
 public class AccountServiceImpl implements AccountService {
 
     private final AccountRepository acc;
+    private final AccountLookupCache accountLookup;
+    private final InterestAccrualRepository accruals;
 
-    public AccountServiceImpl(AccountRepository acc) {
+    public AccountServiceImpl(AccountRepository acc, AccountLookupCache accountLookup,
+                              InterestAccrualRepository accruals) {
         this.acc = acc;
+        this.accountLookup = accountLookup;
+        this.accruals = accruals;
     }
 
     @Override
@@ -22,17 +29,26 @@ public class AccountServiceImpl implements AccountService {
         Account existing = acc.findById(id).orElseThrow();
         existing.setType(account.getType());
         existing.setInterestRate(account.getInterestRate());
-        return acc.save(existing);
+        Account saved = acc.save(existing);
+        accountLookup.evict(saved.getAccountNumber());
+        return saved;
     }
 
     @Override
     public List<Account> getAllAccounts() {
-        return acc.findAll();
+        List<Account> accounts = acc.findAll();
+        Map<Long, Long> unposted = accruals.findAllUnposted();
+        for (Account a : accounts) {
+            a.setAccruedInterestMinor(unposted.getOrDefault(a.getId(), 0L));
+        }
+        return accounts;
     }
 
     @Override
     public Account getAccount(Long id) {
-        return acc.findById(id)
+        Account account = acc.findById(id)
                 .orElseThrow(() -> new RuntimeException("Account Not found " + id));
+        account.setAccruedInterestMinor(accruals.findUnposted(id));
+        return account;
     }
 }
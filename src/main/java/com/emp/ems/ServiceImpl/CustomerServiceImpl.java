@@ -16,10 +16,13 @@ public class CustomerServiceImpl implements CustomerService {
 
     private final CustomerRepository cust;
     private final AccountRepository acc;
+    private final AccountLookupCache accountLookup;
 
-    public CustomerServiceImpl(CustomerRepository cust, AccountRepository acc) {
+    public CustomerServiceImpl(CustomerRepository cust, AccountRepository acc,
+                               AccountLookupCache accountLookup) {
         this.cust = cust;
         this.acc = acc;
+        this.accountLookup = accountLookup;
     }
 
     @Transactional
@@ -51,7 +54,7 @@ public class CustomerServiceImpl implements CustomerService {
         String accNo = "ICICI000" + saved.getId();
         accEntity.setAccountNumber(accNo);
         accEntity.setSortCode("ICIC-09-10");
-        accEntity.setBalance(0.0);
+        accEntity.setBalanceMinor(0L);
         accEntity.setType(AccountType.SAVINGS);
         accEntity.setInterestRate(0.04);
         accEntity.setCustomer(saved);
@@ -129,6 +132,7 @@ public class CustomerServiceImpl implements CustomerService {
         }
         
         cust.deleteById(id);
+        accountLookup.evictCustomer(id);
     }
 
     @Override
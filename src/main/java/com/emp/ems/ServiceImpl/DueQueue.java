@@ -0,0 +1,55 @@
+package com.emp.ems.ServiceImpl;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Upcoming standing-order executions ordered by due time, so the dispatcher can find
+ * what is due by looking at the head instead of querying the table.
+ *
+ * One entry per order: adding an order again moves it to its new time. Entries are only
+ * hints; the executor re-reads the row before paying, so a stale entry is harmless.
+ */
+class DueQueue {
+
+    private record Entry(LocalDateTime at, long id) implements Comparable<Entry> {
+        @Override
+        public int compareTo(Entry o) {
+            int c = at.compareTo(o.at);
+            return c != 0 ? c : Long.compare(id, o.id);
+        }
+    }
+
+    private final TreeSet<Entry> byTime = new TreeSet<>();
+    private final Map<Long, Entry> byId = new HashMap<>();
+
+    synchronized void add(long id, LocalDateTime at) {
+        Entry previous = byId.put(id, new Entry(at, id));
+        if (previous != null) byTime.remove(previous);
+        byTime.add(byId.get(id));
+    }
+
+    synchronized void remove(long id) {
+        Entry previous = byId.remove(id);
+        if (previous != null) byTime.remove(previous);
+    }
+
+    // Removes and returns the ids due before now, earliest first
+    synchronized List<Long> pollDue(LocalDateTime now) {
+        List<Long> due = new ArrayList<>();
+        while (!byTime.isEmpty() && byTime.first().at().isBefore(now)) {
+            Entry e = byTime.pollFirst();
+            byId.remove(e.id());
+            due.add(e.id());
+        }
+        return due;
+    }
+
+    synchronized int size() {
+        return byId.size();
+    }
+}
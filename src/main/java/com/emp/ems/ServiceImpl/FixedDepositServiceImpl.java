@@ -0,0 +1,275 @@
+package com.emp.ems.ServiceImpl;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.emp.ems.Repositories.AccountRepository;
+import com.emp.ems.Repositories.FixedDepositBatchRepository;
+import com.emp.ems.Repositories.FixedDepositBatchRepository.MaturingDeposit;
+import com.emp.ems.Repositories.FixedDepositRepository;
+import com.emp.ems.Repositories.TransactionRepository;
+import com.emp.ems.Repositories.TransferBatchRepository;
+import com.emp.ems.Repositories.TransferBatchRepository.LockedBalance;
+import com.emp.ems.Service.FixedDepositService;
+import com.emp.ems.dto.AccountMeta;
+import com.emp.ems.dto.FixedDepositRequest;
+import com.emp.ems.entities.Account;
+import com.emp.ems.entities.FixedDeposit;
+import com.emp.ems.entities.Money;
+import com.emp.ems.entities.Transaction;
+import com.emp.ems.entities.TransactionType;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Fixed deposits: opening one moves the principal out of the linked account, closing it
+ * (at maturity, or early at a reduced rate) credits principal plus simple interest back.
+ *
+ * The nightly maturity job pages through the due deposits by id and pays a chunk of them
+ * per transaction the way batch transfers do: the deposits and their accounts are locked
+ * with one query each, balances move in memory and are written with one batched UPDATE,
+ * the deposits are closed with another and the transaction rows go out as batched INSERTs.
+ * A deposit is only paid while it is still open under its row lock, so a rerun or a second
+ * node never pays it twice; a chunk that fails is left for the next run.
+ */
+@Service
+public class FixedDepositServiceImpl implements FixedDepositService {
+
+    private static final Logger log = LoggerFactory.getLogger(FixedDepositServiceImpl.class);
+
+    private static final int MAX_TERM_MONTHS = 120;
+
+    private final FixedDepositRepository fdRepo;
+    private final FixedDepositBatchRepository fdBatchRepo;
+    private final TransferBatchRepository balanceRepo;
+    private final AccountRepository acc;
+    private final TransactionRepository tran;
+    private final AccountLockManager locks;
+    private final AccountLookupCache accounts;
+    private final TransactionTemplate txTemplate;
+    private final double rate;
+    private final double prematurePenalty;
+    private final int chunkSize;
+
+    private final Timer maturityTimer;
+    private final Counter matured;
+
+    public FixedDepositServiceImpl(FixedDepositRepository fdRepo, FixedDepositBatchRepository fdBatchRepo,
+                                   TransferBatchRepository balanceRepo, AccountRepository acc,
+                                   TransactionRepository tran, AccountLockManager locks,
+                                   AccountLookupCache accounts, PlatformTransactionManager txManager,
+                                   MeterRegistry registry,
+                                   @Value("${bitbank.fixed-deposits.rate:0.07}") double rate,
+                                   @Value("${bitbank.fixed-deposits.premature-penalty:0.01}") double prematurePenalty,
+                                   @Value("${bitbank.fixed-deposits.chunk-size:1000}") int chunkSize) {
+        this.fdRepo = fdRepo;
+        this.fdBatchRepo = fdBatchRepo;
+        this.balanceRepo = balanceRepo;
+        this.acc = acc;
+        this.tran = tran;
+        this.locks = locks;
+        this.accounts = accounts;
+        this.txTemplate = new TransactionTemplate(txManager);
+        this.rate = rate;
+        this.prematurePenalty = prematurePenalty;
+        this.chunkSize = chunkSize;
+
+        this.maturityTimer = Timer.builder("bitbank.fixed-deposits.maturity")
+                .description("Time of a fixed-deposit maturity run")
+                .register(registry);
+        this.matured = Counter.builder("bitbank.fixed-deposits.matured")
+                .description("Fixed deposits paid out at maturity")
+                .register(registry);
+    }
+
+    @Override
+    public FixedDeposit open(FixedDepositRequest req) {
+        long amount = Money.ofRupees(req.amount);
+        if (amount <= 0) {
+            throw new IllegalArgumentException("Deposit amount must be greater than 0");
+        }
+        if (req.termMonths < 1 || req.termMonths > MAX_TERM_MONTHS) {
+            throw new IllegalArgumentException("Term must be between 1 and " + MAX_TERM_MONTHS + " months");
+        }
+        String number = req.accountNumber != null ? req.accountNumber.trim() : null;
+        AccountMeta meta = number != null ? accounts.find(number) : null;
+        if (meta == null) {
+            throw new NoSuchElementException("Account " + number + " does not exist");
+        }
+
+        return locks.withLocks(() -> txTemplate.execute(status -> {
+            Account account = acc.findByIdForUpdate(meta.id());
+            if (account == null) {
+                accounts.evict(number);
+                throw new NoSuchElementException("Account " + number + " does not exist");
+            }
+            if (amount > account.getBalanceMinor()) {
+                throw new IllegalStateException("Insufficient balance. Your account balance is ₹"
+                        + Money.format(account.getBalanceMinor()) + ".");
+            }
+            account.setBalanceMinor(Money.subtract(account.getBalanceMinor(), amount));
+            acc.save(account);
+
+            LocalDate today = LocalDate.now();
+            FixedDeposit fd = new FixedDeposit();
+            fd.setPrincipalMinor(amount);
+            fd.setInterestRate(rate);
+            fd.setStartDate(today);
+            fd.setMaturityDate(today.plusMonths(req.termMonths));
+            fd.setLinkedAccount(account);
+            fd = fdRepo.save(fd);
+
+            Transaction tx = new Transaction();
+            tx.setType(TransactionType.WITHDRAW);
+            tx.setAmountMinor(amount);
+            tx.setDescription("Fixed deposit " + fd.getId() + " opened from " + number);
+            tx.setFromAccount(account);
+            tx.setStatus("SUCCESS");
+            tran.save(tx);
+            return fd;
+        }), number);
+    }
+
+    @Override
+    public FixedDeposit close(Long id) {
+        FixedDeposit current = getFixedDeposit(id);
+        String number = current.getLinkedAccount().getAccountNumber();
+
+        return locks.withLocks(() -> txTemplate.execute(status -> {
+            FixedDeposit fd = fdRepo.findByIdForUpdate(id);
+            if (fd.isClosed()) {
+                throw new IllegalStateException("Fixed deposit " + id + " is already closed");
+            }
+            LocalDate today = LocalDate.now();
+            boolean early = today.isBefore(fd.getMaturityDate());
+            long interest = early
+                    ? Money.simpleInterest(fd.getPrincipalMinor(), fd.getInterestRate() - prematurePenalty,
+                            ChronoUnit.DAYS.between(fd.getStartDate(), today))
+                    : maturityInterest(fd.getPrincipalMinor(), fd.getInterestRate(), fd.getStartDate(), fd.getMaturityDate());
+
+            Account account = acc.findByIdForUpdate(fd.getLinkedAccount().getId());
+            long payout = Money.add(fd.getPrincipalMinor(), interest);
+            account.setBalanceMinor(Money.add(account.getBalanceMinor(), payout));
+            acc.save(account);
+
+            fd.setClosed(true);
+            fd.setInterestMinor(interest);
+            fd.setClosedAt(LocalDateTime.now());
+            fd = fdRepo.save(fd);
+
+            tran.save(payoutTransaction(fd.getId(), early ? "closed early" : "matured", fd.getPrincipalMinor(),
+                    interest, account, null));
+            return fd;
+        }), number);
+    }
+
+    @Override
+    public FixedDeposit getFixedDeposit(Long id) {
+        return fdRepo.findById(id)
+                .orElseThrow(() -> new NoSuchElementException("Fixed deposit " + id + " does not exist"));
+    }
+
+    @Override
+    public List<FixedDeposit> getForAccount(String accountNumber) {
+        return fdRepo.findByLinkedAccountAccountNumberOrderByMaturityDate(accountNumber);
+    }
+
+    // Run daily after the interest accrual
+    @Scheduled(cron = "0 30 1 * * *")
+    public void processMaturities() {
+        matureDue(LocalDate.now());
+    }
+
+    @Override
+    public int matureDue(LocalDate date) {
+        long started = System.nanoTime();
+        int paid = 0;
+        int failedChunks = 0;
+        long after = 0;
+        List<Long> ids;
+        while (!(ids = fdRepo.findMaturingIdsAfter(date, after, PageRequest.of(0, chunkSize))).isEmpty()) {
+            after = ids.get(ids.size() - 1);
+            List<Long> chunk = ids;
+            try {
+                Integer n = txTemplate.execute(status -> matureChunk(chunk));
+                paid += n;
+                matured.increment(n);
+            } catch (RuntimeException e) {
+                // typically a lock wait on a busy account; the chunk stays open for the next run
+                failedChunks++;
+                log.warn("Fixed deposits {}..{} not matured: {}", chunk.get(0), after, e.getMessage());
+            }
+        }
+        maturityTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        log.info("Fixed deposits due by {}: {} matured, {} chunks failed, in {} ms", date, paid, failedChunks,
+                (System.nanoTime() - started) / 1_000_000);
+        return paid;
+    }
+
+    // In-JVM stripes are skipped here as in batch transfers; the DB row locks are taken
+    // deposits first, then accounts in account-number order
+    private int matureChunk(List<Long> ids) {
+        List<MaturingDeposit> deposits = fdBatchRepo.lockOpen(ids);
+        if (deposits.isEmpty()) return 0;
+
+        Set<Long> accountIds = new HashSet<>();
+        for (MaturingDeposit d : deposits) accountIds.add(d.linkedAccountId());
+        Map<Long, String> numbers = fdBatchRepo.findAccountNumbers(accountIds);
+        Map<String, LockedBalance> balances = balanceRepo.lockBalances(new TreeSet<>(numbers.values()));
+
+        Map<Long, Long> interestById = new HashMap<>(deposits.size() * 2);
+        List<Transaction> rows = new ArrayList<>(deposits.size());
+        for (MaturingDeposit d : deposits) {
+            LockedBalance account = balances.get(numbers.get(d.linkedAccountId()));
+            long interest = maturityInterest(d.principalMinor(), d.interestRate(), d.startDate(), d.maturityDate());
+            account.balance = Money.add(account.balance, Money.add(d.principalMinor(), interest));
+            account.dirty = true;
+            interestById.put(d.id(), interest);
+            rows.add(payoutTransaction(d.id(), "matured", d.principalMinor(), interest,
+                    acc.getReferenceById(account.id), account.customerId));
+        }
+
+        balanceRepo.updateBalances(balances.values());
+        fdBatchRepo.markClosed(interestById, LocalDateTime.now());
+        tran.saveAll(rows); // flushed as batched INSERTs at commit
+        return deposits.size();
+    }
+
+    private static long maturityInterest(long principal, double annualRate, LocalDate start, LocalDate maturity) {
+        return Money.simpleInterest(principal, annualRate, ChronoUnit.DAYS.between(start, maturity));
+    }
+
+    private static Transaction payoutTransaction(long fdId, String how, long principal, long interest,
+                                                 Account to, Long toCustomerId) {
+        Transaction tx = new Transaction();
+        tx.setType(TransactionType.DEPOSIT);
+        tx.setAmountMinor(Money.add(principal, interest));
+        tx.setDescription("Fixed deposit " + fdId + " " + how + ": principal " + Money.format(principal)
+                + " + interest " + Money.format(interest));
+        tx.setToAccount(to);
+        tx.setToCustomerId(toCustomerId);
+        tx.setStatus("SUCCESS");
+        return tx;
+    }
+}
@@ -0,0 +1,216 @@
+package com.emp.ems.ServiceImpl;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.emp.ems.Repositories.IdempotencyRecordRepository;
+import com.emp.ems.Service.IdempotencyService;
+import com.emp.ems.entities.IdempotencyRecord;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Idempotency-Key handling for money-moving endpoints.
+ *
+ * The first request for a key claims it by inserting a row into
+ * {@code idempotency_keys}, runs the action and stores a 2xx result on that row,
+ * all in one transaction: the money move and its recorded outcome commit or roll
+ * back together, so a crash in between cannot leave a moved-but-unrecorded key.
+ * A concurrent retry blocks on the unique key until the first commits and then
+ * replays its result. Non-2xx results roll the claim back (no money moved), so
+ * the client may retry. The action's own transaction joins this one, so the
+ * stripes of the accounts it touches are taken around this transaction and only
+ * released after it commits: nobody queues on a row lock while holding a stripe.
+ *
+ * The row also keeps a hash of the request body; reusing a key for a different
+ * request gets a 422 instead of the first request's response. Stored results are
+ * kept in a bounded LRU cache, so repeats are answered without touching the table.
+ */
+@Service
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 150;
+
+    private final IdempotencyRecordRepository repo;
+    private final AccountLockManager locks;
+    private final ObjectMapper mapper;
+    private final TransactionTemplate txTemplate;
+    private final long cacheTtlNanos;
+    private final long retentionHours;
+    private final Map<String, CachedResponse> cache;
+
+    private record CachedResponse(String requestHash, int status, String body, long expiresAt) { }
+
+    public IdempotencyServiceImpl(IdempotencyRecordRepository repo, AccountLockManager locks, ObjectMapper mapper,
+                                  PlatformTransactionManager txManager,
+                                  @Value("${bitbank.idempotency.cache-size:10000}") int cacheSize,
+                                  @Value("${bitbank.idempotency.cache-ttl-minutes:10}") long cacheTtlMinutes,
+                                  @Value("${bitbank.idempotency.retention-hours:24}") long retentionHours) {
+        this.repo = repo;
+        this.locks = locks;
+        this.mapper = mapper;
+        this.txTemplate = new TransactionTemplate(txManager);
+        this.cacheTtlNanos = TimeUnit.MINUTES.toNanos(cacheTtlMinutes);
+        this.retentionHours = retentionHours;
+        this.cache = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    @Override
+    public ResponseEntity<?> execute(String endpoint, String key, Object request, Supplier<ResponseEntity<?>> action,
+                                     String... accountNumbers) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", "Idempotency-Key is too long.",
+                    "message", "Idempotency-Key is too long."));
+        }
+        String fullKey = endpoint + ":" + key.trim();
+        String requestHash = hash(request);
+
+        CachedResponse hit = fromCache(fullKey);
+        if (hit != null) {
+            return replay(requestHash, hit.requestHash(), hit.status(), hit.body());
+        }
+
+        Optional<IdempotencyRecord> stored = repo.findByIdempotencyKey(fullKey);
+        if (stored.isPresent()) {
+            return replayStored(fullKey, requestHash, stored.get());
+        }
+
+        IdempotencyRecord claim = new IdempotencyRecord();
+        claim.setIdempotencyKey(fullKey);
+        claim.setRequestHash(requestHash);
+        ResponseEntity<?> response;
+        boolean[] locked = new boolean[1];
+        try {
+            response = locks.withLocks(() -> txTemplate.execute(status -> {
+                locked[0] = true;
+                repo.saveAndFlush(claim);
+                ResponseEntity<?> r = action.get();
+                if (!r.getStatusCode().is2xxSuccessful()) {
+                    status.setRollbackOnly();
+                    return r;
+                }
+                claim.setStatusCode(r.getStatusCode().value());
+                claim.setResponseBody(toJson(r.getBody()));
+                repo.saveAndFlush(claim);
+                return r;
+            }), accountNumbers);
+        } catch (IllegalStateException e) {
+            // the stripes were not free in time; nothing was claimed, the client may retry
+            if (locked[0]) throw e;
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                    "error", e.getMessage(),
+                    "message", e.getMessage()));
+        } catch (DataIntegrityViolationException e) {
+            // another request claimed the key between our lookup and insert, and committed;
+            // with no such row the violation came from the action itself
+            Optional<IdempotencyRecord> winner = repo.findByIdempotencyKey(fullKey);
+            if (winner.isEmpty()) throw e;
+            return replayStored(fullKey, requestHash, winner.get());
+        } catch (PessimisticLockingFailureException e) {
+            // waited on the other request's claim for longer than the database allows
+            return inProgress();
+        }
+
+        if (claim.getStatusCode() != null) {
+            toCache(fullKey, requestHash, claim.getStatusCode(), claim.getResponseBody());
+        }
+        return response;
+    }
+
+    // Old keys are dropped from the table after the retention window
+    @Scheduled(cron = "0 30 * * * *")
+    public void purgeExpired() {
+        repo.deleteOlderThan(LocalDateTime.now().minusHours(retentionHours));
+    }
+
+    private ResponseEntity<?> replayStored(String fullKey, String requestHash, IdempotencyRecord r) {
+        if (r.getStatusCode() == null) {
+            return inProgress();
+        }
+        toCache(fullKey, r.getRequestHash(), r.getStatusCode(), r.getResponseBody());
+        return replay(requestHash, r.getRequestHash(), r.getStatusCode(), r.getResponseBody());
+    }
+
+    // Keys stored before request hashes were kept have none and replay for any body
+    private static ResponseEntity<?> replay(String requestHash, String storedHash, int status, String body) {
+        if (storedHash != null && !storedHash.equals(requestHash)) {
+            return ResponseEntity.unprocessableEntity().body(Map.of(
+                    "error", "Idempotency-Key was already used for a different request.",
+                    "message", "Idempotency-Key was already used for a different request."));
+        }
+        return ResponseEntity.status(status)
+                .header("Idempotent-Replay", "true")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    private static ResponseEntity<?> inProgress() {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                "error", "A request with this Idempotency-Key is still being processed.",
+                "message", "A request with this Idempotency-Key is still being processed."));
+    }
+
+    private CachedResponse fromCache(String fullKey) {
+        synchronized (cache) {
+            CachedResponse c = cache.get(fullKey);
+            if (c == null) return null;
+            if (System.nanoTime() - c.expiresAt() > 0) {
+                cache.remove(fullKey);
+                return null;
+            }
+            return c;
+        }
+    }
+
+    private void toCache(String fullKey, String requestHash, int status, String body) {
+        CachedResponse c = new CachedResponse(requestHash, status, body, System.nanoTime() + cacheTtlNanos);
+        synchronized (cache) {
+            cache.put(fullKey, c);
+        }
+    }
+
+    // SHA-256 of the request as JSON, hex
+    private String hash(Object request) {
+        try {
+            byte[] json = mapper.writeValueAsBytes(request);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not hash idempotent request", e);
+        }
+    }
+
+    private String toJson(Object body) {
+        try {
+            return mapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not store idempotent response", e);
+        }
+    }
+}
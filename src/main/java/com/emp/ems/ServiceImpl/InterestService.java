@@ -1,52 +1,303 @@
 package com.emp.ems.ServiceImpl;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import com.emp.ems.Repositories.AccountRepository;
-import com.emp.ems.Repositories.TransactionRepository;
-import com.emp.ems.entities.Account;
-import com.emp.ems.entities.AccountType;
-import com.emp.ems.entities.Transaction;
-import com.emp.ems.entities.TransactionType;
+import com.emp.ems.Repositories.InterestAccrualRepository;
+import com.emp.ems.Repositories.InterestAccrualRepository.ChunkTotals;
+import com.emp.ems.Repositories.InterestRunRangeRepository;
+import com.emp.ems.Repositories.InterestRunRepository;
+import com.emp.ems.config.ConnectionHolders;
+import com.emp.ems.entities.InterestRun;
+import com.emp.ems.entities.InterestRunRange;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Daily interest on savings accounts, set-based: accounts accrue a day of interest a chunk
+ * of ids at a time into interest_accruals (see InterestAccrualRepository), each chunk in its
+ * own short transaction. Balances and the transactions table are only touched at month end,
+ * when each account's accrual for the month is posted as one INTEREST transaction; until
+ * then the unposted amount is shown next to the balance.
+ *
+ * A run splits the savings accounts into id ranges of chunk-size accounts once, when it
+ * starts, and records them in interest_run_ranges. The ranges are disjoint, so they are
+ * accrued in parallel on a bounded pool. A range turns DONE by compare-and-set in the
+ * transaction that accrues it: a crashed or failed run resumes with the ranges still
+ * PENDING, and two nodes on the same run cannot both accrue a range.
+ */
 @Service
-public class InterestService {
+public class InterestService implements ConnectionHolders {
+
+    private static final Logger log = LoggerFactory.getLogger(InterestService.class);
+
+    private final InterestAccrualRepository accrualRepo;
+    private final InterestRunRepository runRepo;
+    private final InterestRunRangeRepository rangeRepo;
+    private final TransactionTemplate txTemplate;
+    private final int chunkSize;
+    private final int workers;
+
+    private final Timer rangeTimer;
+    private final Timer runTimer;
+    private final Timer postingTimer;
+    private final AtomicInteger rangesTotal = new AtomicInteger();
+    private final AtomicInteger rangesDone = new AtomicInteger();
+    private final AtomicLong accountsCredited = new AtomicLong();
 
-    private final AccountRepository accountRepo;
-    private final TransactionRepository transactionRepo;
+    public InterestService(InterestAccrualRepository accrualRepo, InterestRunRepository runRepo,
+                           InterestRunRangeRepository rangeRepo, PlatformTransactionManager txManager,
+                           MeterRegistry registry,
+                           @Value("${bitbank.interest.chunk-size:1000}") int chunkSize,
+                           @Value("${bitbank.interest.workers:4}") int workers) {
+        this.accrualRepo = accrualRepo;
+        this.runRepo = runRepo;
+        this.rangeRepo = rangeRepo;
+        this.txTemplate = new TransactionTemplate(txManager);
+        this.chunkSize = chunkSize;
+        this.workers = workers;
 
-    public InterestService(AccountRepository accountRepo, TransactionRepository transactionRepo) {
-        this.accountRepo = accountRepo;
-        this.transactionRepo = transactionRepo;
+        this.rangeTimer = Timer.builder("bitbank.interest.range")
+                .description("Time to accrue one id range of an interest run")
+                .register(registry);
+        this.runTimer = Timer.builder("bitbank.interest.run")
+                .description("Time of an interest run, including resumed ones")
+                .register(registry);
+        this.postingTimer = Timer.builder("bitbank.interest.posting")
+                .description("Time to post a month of accrued interest")
+                .register(registry);
+        Gauge.builder("bitbank.interest.ranges.total", rangesTotal, AtomicInteger::get)
+                .description("Ranges of the current or last interest run")
+                .register(registry);
+        Gauge.builder("bitbank.interest.ranges.done", rangesDone, AtomicInteger::get)
+                .description("Ranges of the current or last interest run credited so far")
+                .register(registry);
+        Gauge.builder("bitbank.interest.accounts.credited", accountsCredited, AtomicLong::get)
+                .description("Accounts that accrued interest in the current or last run so far")
+                .register(registry);
     }
 
     // Run daily at 1 AM
     @Scheduled(cron = "0 0 1 * * *")
-    @Transactional
     public void applyDailyInterest() {
-        List<Account> accounts = accountRepo.findByType(AccountType.SAVINGS);
+        accrue(LocalDate.now());
+    }
+
+    // Month-end posting of last month's accruals, once its last day has been accrued
+    @Scheduled(cron = "0 0 2 1 * *")
+    public void postMonthlyInterest() {
+        YearMonth month = YearMonth.now().minusMonths(1);
+        try {
+            postInterest(month);
+        } catch (IllegalStateException e) {
+            log.warn("Interest for {} not posted: {}", month, e.getMessage());
+        }
+    }
+
+    /**
+     * Accrues one day of interest for runDate to every savings account that has not had it
+     * yet. Returns the run; calling it again for a completed date does nothing, for a failed
+     * or interrupted one it accrues the ranges that are left.
+     */
+    public InterestRun accrue(LocalDate runDate) {
+        InterestRun run = runRepo.findByRunDate(runDate).orElse(null);
+        if (run != null && "COMPLETED".equals(run.getStatus())) {
+            return run;
+        }
+        if (run == null) {
+            try {
+                run = txTemplate.execute(status -> plan(runDate));
+            } catch (DataIntegrityViolationException e) {
+                // another node created the run first; join it on the ranges it planned
+                run = runRepo.findByRunDate(runDate).orElseThrow();
+            }
+        }
+
+        long started = System.nanoTime();
+        long runId = run.getId();
+        List<InterestRunRange> pending = rangeRepo.findByRunIdAndStatusOrderByRangeEnd(runId, "PENDING");
+        rangesTotal.set(run.getTotalRanges());
+        rangesDone.set(run.getTotalRanges() - pending.size());
+        accountsCredited.set(run.getAccountsCredited());
+
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(workers * 2), r -> {
+                    Thread t = new Thread(r, "interest-" + runDate);
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        List<Future<?>> futures = new ArrayList<>(pending.size());
+        RuntimeException failure = null;
+        try {
+            for (InterestRunRange range : pending) {
+                futures.add(pool.submit(() -> accrueRange(range, runDate)));
+            }
+            // in range order, so the checkpoint only ever covers a prefix of finished ranges
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    futures.get(i).get();
+                    if (failure == null) accrualRepo.advanceCheckpoint(runId, pending.get(i).getRangeEnd());
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause() instanceof RuntimeException re ? re : new IllegalStateException(e.getCause());
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure = new IllegalStateException("Interest run for " + runDate + " interrupted", e);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        run = runRepo.findById(runId).orElseThrow();
+        List<Object[]> sums = rangeRepo.sumDone(runId);
+        run.setAccountsCredited(((Number) sums.get(0)[0]).longValue());
+        run.setInterestMinor(((Number) sums.get(0)[1]).longValue());
+        accountsCredited.set(run.getAccountsCredited());
+        runTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        if (failure != null) {
+            run.setStatus("FAILED");
+            runRepo.save(run);
+            log.error("Interest run for {} failed with {} of {} ranges done", runDate, rangesDone.get(),
+                    rangesTotal.get(), failure);
+            throw failure;
+        }
 
-        for (Account acc : accounts) {
-            double annualRate = acc.getInterestRate();   
-            double dailyRate = annualRate / 365.0;
-            double interest = acc.getBalance() * dailyRate;
+        run.setStatus("COMPLETED");
+        run.setFinishedAt(LocalDateTime.now());
+        run = runRepo.save(run);
+        log.info("Interest for {}: {} accounts accrued {} paise, {} ranges on {} workers, in {} ms", runDate,
+                run.getAccountsCredited(), run.getInterestMinor(), pending.size(), workers,
+                (System.nanoTime() - started) / 1_000_000);
+        return run;
+    }
+
+    // Creates the run and its ranges in one transaction, so a run never exists half-planned.
+    // Accounts opened after this are not in any range and earn from the next day on.
+    private InterestRun plan(LocalDate runDate) {
+        InterestRun run = new InterestRun();
+        run.setRunDate(runDate);
+        run.setStatus("RUNNING");
+        run = runRepo.saveAndFlush(run);
+
+        List<InterestRunRange> ranges = new ArrayList<>();
+        long after = 0;
+        Long last;
+        while ((last = accrualRepo.findChunkEnd(after, chunkSize)) != null) {
+            ranges.add(new InterestRunRange(run.getId(), after, last));
+            after = last;
+        }
+        rangeRepo.saveAll(ranges);
+        run.setTotalRanges(ranges.size());
+        return runRepo.save(run);
+    }
+
+    // One range, one transaction: lock, accrue, mark the range DONE
+    private void accrueRange(InterestRunRange range, LocalDate runDate) {
+        long started = System.nanoTime();
+        Boolean done = txTemplate.execute(status -> {
+            ChunkTotals totals = accrualRepo.lockChunk(range.getRangeStart(), range.getRangeEnd());
+            long durationMs = (System.nanoTime() - started) / 1_000_000;
+            if (!accrualRepo.completeRange(range.getId(), totals, durationMs)) {
+                status.setRollbackOnly();
+                return false;
+            }
+            if (totals.accounts() > 0) {
+                accrualRepo.accrueInterest(range.getRangeStart(), range.getRangeEnd(), runDate);
+                accountsCredited.addAndGet(totals.accounts());
+            }
+            return true;
+        });
+        if (Boolean.TRUE.equals(done)) {
+            rangesDone.incrementAndGet();
+            rangeTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
 
-            if (interest <= 0) continue;
+    /**
+     * Posts what the savings accounts accrued in month (and did not have posted yet) to their
+     * balances, one INTEREST transaction per account, a chunk of accounts per transaction.
+     * The month must be over and its last day accrued. Safe to call again: only what is still
+     * unposted is posted. Returns the accounts and paise posted.
+     */
+    public ChunkTotals postInterest(YearMonth month) {
+        if (!month.isBefore(YearMonth.now())) {
+            throw new IllegalArgumentException("Month " + month + " is not over yet");
+        }
+        InterestRun lastDay = runRepo.findByRunDate(month.atEndOfMonth()).orElse(null);
+        if (lastDay == null || !"COMPLETED".equals(lastDay.getStatus())) {
+            throw new IllegalStateException("Interest run for " + month.atEndOfMonth() + " has not completed");
+        }
 
-            acc.setBalance(acc.getBalance() + interest);
-            accountRepo.save(acc);
+        long started = System.nanoTime();
+        LocalDate period = month.atDay(1);
+        String description = "Interest for " + month;
+        int accounts = 0;
+        long interest = 0;
+        long after = 0;
+        Long last;
+        while ((last = accrualRepo.findPostingChunkEnd(period, after, chunkSize)) != null) {
+            ChunkTotals posted = postChunk(period, after, last, description);
+            accounts += posted.accounts();
+            interest += posted.interestMinor();
+            after = last;
+        }
+        postingTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        log.info("Interest for {} posted: {} accounts, {} paise, in {} ms", month, accounts, interest,
+                (System.nanoTime() - started) / 1_000_000);
+        return new ChunkTotals(accounts, interest);
+    }
 
-            Transaction tx = new Transaction();
-            tx.setType(TransactionType.INTEREST);
-            tx.setAmount(interest);
-            tx.setDescription("Daily interest");
-            tx.setToAccount(acc);
-            tx.setStatus("SUCCESS");
-            transactionRepo.save(tx);
+    // Transaction ids are reserved up front in their own transaction, so the chunk never holds
+    // two connections; if more accruals turned up in the chunk since, reserve again
+    private ChunkTotals postChunk(LocalDate period, long afterId, long lastId, String description) {
+        while (true) {
+            int reserved = accrualRepo.countUnposted(period, afterId, lastId);
+            if (reserved == 0) return new ChunkTotals(0, 0);
+            long firstTxId = txTemplate.execute(s -> accrualRepo.reserveTransactionIds(reserved));
+            ChunkTotals posted = txTemplate.execute(status -> {
+                ChunkTotals totals = accrualRepo.lockUnposted(period, afterId, lastId);
+                if (totals.accounts() > reserved) {
+                    status.setRollbackOnly();
+                    return null;
+                }
+                accrualRepo.postInterest(period, afterId, lastId, firstTxId, description);
+                return totals;
+            });
+            if (posted != null) return posted;
         }
     }
+
+    @Override
+    public String connectionHoldersName() {
+        return "interest workers";
+    }
+
+    // the pool an interest run credits its ranges on
+    @Override
+    public int connectionHolders() {
+        return workers;
+    }
 }
@@ -1,28 +1,96 @@
 package com.emp.ems.ServiceImpl;
 
-import java.util.HashMap;
-import java.util.Random;
+import java.security.SecureRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import com.emp.ems.Service.OtpService;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Pending login OTPs, in memory only: one per email, valid for ttl-seconds and usable once.
+ * Expired codes are rejected on read and removed by a periodic sweep. The store holds at
+ * most max-entries codes; once it is full, new emails are refused until codes are used or
+ * expire, so a flood of OTP requests cannot grow the heap.
+ *
+ * Codes do not survive a restart and are not shared between nodes; a user who hits another
+ * node or a restarted one asks for a new code.
+ */
 @Service
 public class OtpServiceImpl implements OtpService {
 
-    private HashMap<String, String> otpStore = new HashMap<>();
+    private record Entry(String code, long expiresAt) { }
+
+    private final ConcurrentHashMap<String, Entry> otps = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final SecureRandom random = new SecureRandom();
+    private final long ttlMs;
+    private final int maxEntries;
+
+    public OtpServiceImpl(MeterRegistry registry,
+                          @Value("${bitbank.otp.ttl-seconds:300}") long ttlSeconds,
+                          @Value("${bitbank.otp.max-entries:100000}") int maxEntries) {
+        this.ttlMs = ttlSeconds * 1000;
+        this.maxEntries = maxEntries;
+        Gauge.builder("bitbank.otp.pending", size, AtomicInteger::get).register(registry);
+    }
 
+    // Replaces any code already pending for the email
     @Override
     public String generateOtp(String email) {
-        String otp = String.format("%06d", new Random().nextInt(999999));
-        otpStore.put(email, otp);
-        System.out.println("Generated OTP for " + email + ": " + otp);
+        String otp = String.format("%06d", 100000 + random.nextInt(900000));
+        Entry entry = new Entry(otp, System.currentTimeMillis() + ttlMs);
+        otps.compute(email, (k, old) -> {
+            if (old == null) reserveSlot();
+            return entry;
+        });
         return otp;
     }
 
+    // True once per code: a match removes it
     @Override
     public boolean validateOtp(String email, String otp) {
-        if (!otpStore.containsKey(email)) return false;
-        return otpStore.get(email).equals(otp);
+        Entry entry = otps.get(email);
+        if (entry == null) return false;
+        if (entry.expiresAt() <= System.currentTimeMillis()) {
+            remove(email, entry);
+            return false;
+        }
+        return entry.code().equals(otp) && remove(email, entry);
+    }
+
+    @Scheduled(fixedDelayString = "${bitbank.otp.sweep-ms:30000}")
+    public void sweepExpired() {
+        long now = System.currentTimeMillis();
+        otps.forEach((email, entry) -> {
+            if (entry.expiresAt() <= now) remove(email, entry);
+        });
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    // Hard cap: the slot is taken before the entry goes in, so concurrent new emails cannot overshoot
+    private void reserveSlot() {
+        int n;
+        do {
+            n = size.get();
+            if (n >= maxEntries) {
+                throw new IllegalStateException("Too many pending OTPs, please retry shortly");
+            }
+        } while (!size.compareAndSet(n, n + 1));
+    }
+
+    private boolean remove(String email, Entry entry) {
+        if (!otps.remove(email, entry)) return false;
+        size.decrementAndGet();
+        return true;
     }
 }
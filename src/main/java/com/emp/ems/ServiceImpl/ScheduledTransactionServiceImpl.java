@@ -1,28 +1,100 @@
 package com.emp.ems.ServiceImpl;
 
+import java.lang.management.ManagementFactory;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.emp.ems.Repositories.ScheduledTransactionRepository;
 import com.emp.ems.Service.ScheduledTransactionService;
 import com.emp.ems.Service.TransactionService;
+import com.emp.ems.config.ConnectionHolders;
 import com.emp.ems.dto.ScheduledTransactionRequest;
+import com.emp.ems.dto.TransferOutcome;
 import com.emp.ems.entities.Frequency;
+import com.emp.ems.entities.Money;
 import com.emp.ems.entities.ScheduledTransaction;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
 @Service
-public class ScheduledTransactionServiceImpl implements ScheduledTransactionService {
+public class ScheduledTransactionServiceImpl implements ScheduledTransactionService, ConnectionHolders {
+
+    private static final Logger log = LoggerFactory.getLogger(ScheduledTransactionServiceImpl.class);
 
     private final ScheduledTransactionRepository repo;
     private final TransactionService tran;
+    private final AccountLockManager locks;
+    private final TransactionTemplate txTemplate;
+    private final ExecutorService workers;
+    private final int workerCount;
+    private final int chunkSize;
+    private final long horizonMinutes;
+    private final String nodeId;
+    private final long leaseSeconds;
+    private final DueQueue upcoming = new DueQueue();
+    private final AtomicLong backlog = new AtomicLong();
+    private final Timer runTimer;
+    private final Counter paid;
+    private final Counter failed;
+    private final Counter suspended;
+    private final long retryBaseMinutes;
+    private final long retryMaxMinutes;
+    private final int maxAttempts;
 
-    public ScheduledTransactionServiceImpl(ScheduledTransactionRepository repo, TransactionService tran) {
+    public ScheduledTransactionServiceImpl(ScheduledTransactionRepository repo, TransactionService tran,
+                                           AccountLockManager locks, PlatformTransactionManager txManager, MeterRegistry registry,
+                                           @Value("${bitbank.standing-orders.workers:4}") int workers,
+                                           @Value("${bitbank.standing-orders.chunk-size:100}") int chunkSize,
+                                           @Value("${bitbank.standing-orders.horizon-minutes:60}") long horizonMinutes,
+                                           @Value("${bitbank.node-id:}") String nodeId,
+                                           @Value("${bitbank.standing-orders.lease-seconds:120}") long leaseSeconds,
+                                           @Value("${bitbank.standing-orders.retry.base-minutes:5}") long retryBaseMinutes,
+                                           @Value("${bitbank.standing-orders.retry.max-minutes:720}") long retryMaxMinutes,
+                                           @Value("${bitbank.standing-orders.retry.max-attempts:6}") int maxAttempts) {
         this.repo = repo;
         this.tran = tran;
+        this.locks = locks;
+        this.txTemplate = new TransactionTemplate(txManager);
+        this.chunkSize = chunkSize;
+        this.horizonMinutes = horizonMinutes;
+        // "pid@host" unless configured; must differ between nodes sharing the database
+        this.nodeId = nodeId.isBlank() ? ManagementFactory.getRuntimeMXBean().getName() : nodeId;
+        this.leaseSeconds = leaseSeconds;
+        this.retryBaseMinutes = retryBaseMinutes;
+        this.retryMaxMinutes = retryMaxMinutes;
+        this.maxAttempts = maxAttempts;
+        AtomicInteger threadNo = new AtomicInteger();
+        this.workerCount = workers;
+        this.workers = Executors.newFixedThreadPool(workers,
+                r -> new Thread(r, "standing-order-" + threadNo.incrementAndGet()));
+
+        this.runTimer = Timer.builder("bitbank.standing-orders.run").register(registry);
+        this.paid = Counter.builder("bitbank.standing-orders.paid").register(registry);
+        this.failed = Counter.builder("bitbank.standing-orders.failed").register(registry);
+        this.suspended = Counter.builder("bitbank.standing-orders.suspended").register(registry);
+        Gauge.builder("bitbank.standing-orders.backlog", backlog, AtomicLong::get).register(registry);
+        Gauge.builder("bitbank.standing-orders.upcoming", upcoming, DueQueue::size).register(registry);
     }
 
     @Override
@@ -30,11 +102,13 @@ public class ScheduledTransactionServiceImpl implements ScheduledTransactionServ
         ScheduledTransaction st = new ScheduledTransaction();
         st.setFromAccountNumber(req.fromAccountNumber);
         st.setToAccountNumber(req.toAccountNumber);
-        st.setAmount(req.amount);
+        st.setAmountMinor(Money.ofRupees(req.amount));
         st.setFrequency(req.frequency);
         st.setNextExecution(LocalDateTime.now().plusMinutes(1)); // first run soon
         st.setActive(true);
-        return repo.save(st);
+        ScheduledTransaction saved = repo.save(st);
+        schedule(saved.getId(), saved.getNextExecution());
+        return saved;
     }
 
     @Override
@@ -42,6 +116,7 @@ public class ScheduledTransactionServiceImpl implements ScheduledTransactionServ
         ScheduledTransaction st = repo.findById(id).orElseThrow();
         st.setActive(false);
         repo.save(st);
+        upcoming.remove(id);
     }
 
     @Override
@@ -49,30 +124,194 @@ public class ScheduledTransactionServiceImpl implements ScheduledTransactionServ
         return repo.findAll();
     }
 
-    @Scheduled(fixedDelay = 60000) // every minute
-    @Transactional
-    public void processDuePayments() {
+    @Override
+    public List<ScheduledTransaction> getSuspended() {
+        return repo.findBySuspendedTrueOrderByLastFailureAtDesc();
+    }
+
+    // Payments due within the horizon sit in an in-memory queue ordered by due time; this tick
+    // only looks at its head, so it costs nothing when nothing is due and pays within about a
+    // second of nextExecution. Every node holds the same queue; the claim decides which one pays.
+    @Scheduled(fixedDelay = 1000)
+    public void dispatchDue() {
         LocalDateTime now = LocalDateTime.now();
-        List<ScheduledTransaction> due = repo.findByActiveTrueAndNextExecutionBefore(now);
-
-        for (ScheduledTransaction s : due) {
-            boolean success = tran.transfer(s.getFromAccountNumber(),
-                                            s.getToAccountNumber(),
-                                            s.getAmount());
-            if (success) {
-                LocalDateTime next = s.getNextExecution();
-                Frequency f = s.getFrequency();
-                switch (f) {
-                    case DAILY -> next = next.plusDays(1);
-                    case WEEKLY -> next = next.plusWeeks(1);
-                    case MONTHLY -> next = next.plusMonths(1);
+        List<Long> due = upcoming.pollDue(now);
+        if (due.isEmpty()) return;
+        for (Long id : claim(due, now)) {
+            workers.execute(() -> {
+                try {
+                    execute(id, now);
+                } catch (RuntimeException e) {
+                    log.warn("Standing order {} failed", id, e);
                 }
-                s.setNextExecution(next);
-            } else {
-                // optional: deactivate on repeated failures
+            });
+        }
+    }
+
+    // Reconciliation sweep, and the initial load at startup: pays anything overdue the queue missed
+    // (failed earlier, written by another node, lost on restart), then reloads the orders due within
+    // the horizon. The scheduler thread only pages through ids; each payment runs on the worker pool
+    // in its own transaction, a chunk at a time, so a failed or lock-waiting payment holds up
+    // nothing but itself and the run never has more than one chunk in flight. Each chunk is claimed
+    // first, so nodes sweeping at the same time split the due orders between them.
+    @Scheduled(fixedDelayString = "${bitbank.standing-orders.sweep-ms:300000}")
+    public void processDuePayments() {
+        LocalDateTime now = LocalDateTime.now();
+        backlog.set(repo.countByActiveTrueAndNextExecutionBefore(now));
+        long start = System.nanoTime();
+
+        int executed = 0;
+        int claimed = 0;
+        long afterId = 0;
+        List<Long> ids;
+        do {
+            ids = repo.findDueIdsAfter(now, afterId, PageRequest.ofSize(chunkSize));
+            if (ids.isEmpty()) break;
+            afterId = ids.get(ids.size() - 1);
+
+            List<Long> mine = claim(ids, now);
+            claimed += mine.size();
+            List<Future<Attempt>> results = new ArrayList<>(mine.size());
+            for (Long id : mine) {
+                results.add(workers.submit(() -> execute(id, now)));
+            }
+            for (Future<Attempt> r : results) {
+                Attempt attempt = await(r);
+                if (attempt == null) continue;
+                // paid, pushed back or suspended: no longer due either way. Only the sweep's own
+                // orders count down; one the 1 s dispatch pays first stays counted until the next sweep
+                backlog.decrementAndGet();
+                if (attempt.paid()) executed++;
+            }
+        } while (ids.size() == chunkSize);
+
+        LocalDateTime until = now.plusMinutes(horizonMinutes);
+        afterId = 0;
+        List<ScheduledTransactionRepository.Due> page;
+        do {
+            page = repo.findUpcomingAfter(now, until, afterId, PageRequest.ofSize(chunkSize));
+            for (ScheduledTransactionRepository.Due d : page) {
+                upcoming.add(d.getId(), d.getNextExecution());
+                afterId = d.getId();
+            }
+        } while (page.size() == chunkSize);
+
+        runTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (claimed > 0) {
+            log.info("Standing orders: {} of {} claimed paid in {} ms", executed, claimed,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
+
+    // Lease protocol: a node pays only orders it has claimed. The claim is a conditional UPDATE
+    // that succeeds only while the order is due and unleased (or its lease has expired), so two
+    // nodes never both hold it; a node that dies mid-payment loses its claim after lease-seconds
+    // and the next sweep anywhere picks the order up.
+    private List<Long> claim(List<Long> ids, LocalDateTime now) {
+        return txTemplate.execute(status -> {
+            repo.claim(ids, nodeId, now, LocalDateTime.now().plusSeconds(leaseSeconds));
+            return repo.findClaimed(ids, nodeId);
+        });
+    }
+
+    // Re-read under a row lock and pay only if the lease is still ours (it may have expired and been
+    // taken over) and the order is still due; the transfer joins this transaction, so the payment,
+    // the new due date and the lease release commit together. The accounts' stripes are taken
+    // around that whole transaction, as TransactionServiceImpl does around its own (the transfer
+    // takes them again, they are reentrant): they are only released once the row locks are.
+    // Returns null when there was nothing to do.
+    private Attempt execute(Long id, LocalDateTime now) {
+        ScheduledTransaction order = repo.findById(id).orElse(null);
+        if (order == null) return null;
+        Attempt attempt = locks.withLocks(() -> txTemplate.execute(status -> {
+            ScheduledTransaction s = repo.findByIdForUpdate(id);
+            if (s == null || !nodeId.equals(s.getLeaseOwner())) return null;
+            s.setLeaseOwner(null);
+            s.setLeaseExpiresAt(null);
+            if (!s.isActive() || !s.getNextExecution().isBefore(now)) return null;
+
+            TransferOutcome outcome = tran.transfer(s.getFromAccountNumber(),
+                                                    s.getToAccountNumber(),
+                                                    s.getAmountMinor());
+            if (!outcome.isSuccess()) {
+                return failed(s, outcome.getStatus().name(), now);
             }
+            LocalDateTime due = s.getMissedExecution() != null ? s.getMissedExecution() : s.getNextExecution();
+            Frequency f = s.getFrequency();
+            switch (f) {
+                case DAILY -> due = due.plusDays(1);
+                case WEEKLY -> due = due.plusWeeks(1);
+                case MONTHLY -> due = due.plusMonths(1);
+            }
+            s.setNextExecution(due);
+            s.setMissedExecution(null);
+            s.setFailureCount(0);
+            return new Attempt(true, due);
+        }), order.getFromAccountNumber(), order.getToAccountNumber());
+        if (attempt == null) return null;
+        if (attempt.paid()) paid.increment();
+        if (attempt.next() != null) {
+            schedule(id, attempt.next());
+        }
+        return attempt;
+    }
+
+    private record Attempt(boolean paid, LocalDateTime next) {}
+
+    // Retries back off exponentially (base, 2x base, 4x base ... up to max) instead of costing a
+    // transfer attempt on every sweep; after max-attempts in a row the order is suspended.
+    private Attempt failed(ScheduledTransaction s, String reason, LocalDateTime now) {
+        int failures = s.getFailureCount() + 1;
+        s.setFailureCount(failures);
+        s.setLastFailureReason(reason);
+        s.setLastFailureAt(now);
+        if (s.getMissedExecution() == null) s.setMissedExecution(s.getNextExecution());
+        failed.increment();
+
+        if (failures >= maxAttempts) {
+            s.setSuspended(true);
+            s.setActive(false);
+            suspended.increment();
+            log.warn("Standing order {} suspended after {} failed attempts ({})", s.getId(), failures, reason);
+            return new Attempt(false, null);
+        }
+        long delay = Math.min(retryMaxMinutes, retryBaseMinutes << Math.min(failures - 1, 30));
+        LocalDateTime retryAt = now.plusMinutes(delay);
+        s.setNextExecution(retryAt);
+        return new Attempt(false, retryAt);
+    }
+
+    // Only the horizon is kept in memory; later runs are picked up by a later sweep
+    private void schedule(Long id, LocalDateTime at) {
+        if (at.isBefore(LocalDateTime.now().plusMinutes(horizonMinutes))) {
+            upcoming.add(id, at);
+        }
+    }
+
+    private Attempt await(Future<Attempt> result) {
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            log.warn("Standing order failed", e.getCause());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
         }
+    }
+
+    @Override
+    public String connectionHoldersName() {
+        return "standing-order workers";
+    }
+
+    @Override
+    public int connectionHolders() {
+        return workerCount;
+    }
 
-        repo.saveAll(due);
+    @PreDestroy
+    void shutdown() {
+        workers.shutdownNow();
     }
 }
@@ -0,0 +1,257 @@
+package com.emp.ems.ServiceImpl;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import com.emp.ems.Repositories.AccountRepository;
+import com.emp.ems.Repositories.StatementBatchRunRepository;
+import com.emp.ems.Repositories.TransactionRepository;
+import com.emp.ems.Service.StatementBatchService;
+import com.emp.ems.Service.StatementService;
+import com.emp.ems.config.ConnectionHolders;
+import com.emp.ems.dto.StatementLine;
+import com.emp.ems.dto.StatementPeriod;
+import com.emp.ems.entities.Account;
+import com.emp.ems.entities.StatementBatchRun;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Month-end statements for every account.
+ *
+ * A coordinator thread walks accounts in id order, one partition at a time, and hands
+ * each partition to a worker pool sized to the cores. A worker loads all statement rows
+ * of its partition with one range query, groups them by account and renders each PDF
+ * to {dir}/{yyyy-MM}/statement_{accountId}.pdf (temp file + atomic move, so a file on
+ * disk is always complete). The pool's queue is bounded and the coordinator renders a
+ * partition itself when it is full, so at most a few partitions are in memory at once.
+ *
+ * Partitions finish out of order; the run's checkpoint only advances over the leading
+ * run of finished partitions, so after a crash nothing below it is redone. It also stops
+ * before the first partition with a failed statement, and such a run ends PARTIAL instead
+ * of COMPLETED: starting it again walks on from there and renders only the files missing.
+ */
+@Service
+public class StatementBatchServiceImpl implements StatementBatchService, ConnectionHolders {
+
+    private static final Logger log = LoggerFactory.getLogger(StatementBatchServiceImpl.class);
+
+    private final AccountRepository accountRepo;
+    private final TransactionRepository transactionRepo;
+    private final StatementService statementService;
+    private final StatementBatchRunRepository runRepo;
+    private final Path baseDir;
+    private final int partitionSize;
+    private final int workers;
+    private final ExecutorService coordinator = Executors.newSingleThreadExecutor(r -> new Thread(r, "statement-batch"));
+    private final AtomicReference<Long> activeRun = new AtomicReference<>();
+
+    private record Partition(long lastAccountId, Future<PartitionResult> result) { }
+
+    private record PartitionResult(int rendered, int skipped, int failed) { }
+
+    public StatementBatchServiceImpl(AccountRepository accountRepo, TransactionRepository transactionRepo,
+                                     StatementService statementService, StatementBatchRunRepository runRepo,
+                                     @Value("${bitbank.statement.batch.dir:statements}") String dir,
+                                     @Value("${bitbank.statement.batch.partition-size:200}") int partitionSize,
+                                     @Value("${bitbank.statement.batch.workers:0}") int workers) {
+        this.accountRepo = accountRepo;
+        this.transactionRepo = transactionRepo;
+        this.statementService = statementService;
+        this.runRepo = runRepo;
+        this.baseDir = Path.of(dir);
+        this.partitionSize = partitionSize;
+        this.workers = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+    }
+
+    @Override
+    public synchronized StatementBatchRun start(YearMonth month) {
+        if (!month.isBefore(YearMonth.now())) {
+            throw new IllegalArgumentException("Statements can only be batched for a month that has ended.");
+        }
+        if (activeRun.get() != null) {
+            throw new IllegalStateException("A statement batch is already running (run " + activeRun.get() + ").");
+        }
+
+        StatementBatchRun run = runRepo.findByPeriod(month.toString()).orElseGet(StatementBatchRun::new);
+        if ("COMPLETED".equals(run.getStatus())) {
+            return run;
+        }
+        run.setPeriod(month.toString());
+        run.setStatus("RUNNING");
+        // Counts describe this attempt: what an earlier one finished, up to the checkpoint or
+        // on disk past it, is skipped, and its failed statements are retried
+        run.setRendered(0);
+        run.setSkipped(accountRepo.countByIdLessThanEqual(run.getCheckpointAccountId()));
+        run.setFailed(0);
+        run.setOutputDir(baseDir.resolve(month.toString()).toAbsolutePath().toString());
+        run.setTotalAccounts(accountRepo.count());
+        run.setFinishedAt(null);
+        StatementBatchRun saved = runRepo.save(run);
+
+        activeRun.set(saved.getId());
+        coordinator.execute(() -> {
+            try {
+                execute(saved, month);
+            } finally {
+                activeRun.set(null);
+            }
+        });
+        return saved;
+    }
+
+    @Override
+    public StatementBatchRun getRun(Long id) {
+        return runRepo.findById(id).orElseThrow();
+    }
+
+    private void execute(StatementBatchRun run, YearMonth month) {
+        StatementPeriod period = StatementPeriod.of(null, null, month);
+        long started = System.nanoTime();
+
+        AtomicInteger threadNo = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(workers * 2),
+                r -> new Thread(r, "statement-render-" + threadNo.incrementAndGet()),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        try {
+            Path dir = Files.createDirectories(Path.of(run.getOutputDir()));
+            Deque<Partition> inFlight = new ArrayDeque<>();
+            long after = run.getCheckpointAccountId();
+
+            while (true) {
+                List<Account> accounts = accountRepo.findPartitionAfter(after, PageRequest.ofSize(partitionSize));
+                if (accounts.isEmpty()) break;
+
+                after = accounts.get(accounts.size() - 1).getId();
+                inFlight.add(new Partition(after, pool.submit(() -> renderPartition(accounts, period, dir))));
+                advance(run, inFlight, false);
+            }
+            advance(run, inFlight, true);
+
+            run.setStatus(run.getFailed() > 0 ? "PARTIAL" : "COMPLETED");
+            run.setFinishedAt(LocalDateTime.now());
+            runRepo.save(run);
+
+            double seconds = (System.nanoTime() - started) / 1e9;
+            log.info("Statement batch {} {}: {} rendered, {} skipped, {} failed in {}s ({}/s)",
+                    run.getPeriod(), run.getStatus(), run.getRendered(), run.getSkipped(), run.getFailed(),
+                    Math.round(seconds), Math.round(run.getRendered() / Math.max(seconds, 0.001)));
+        } catch (Exception e) {
+            log.error("Statement batch {} failed at checkpoint {}", run.getPeriod(), run.getCheckpointAccountId(), e);
+            run.setStatus("FAILED");
+            runRepo.save(run);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // Folds finished partitions from the head of the queue into the run and saves the new checkpoint;
+    // once a statement has failed the checkpoint stays below its partition
+    private void advance(StatementBatchRun run, Deque<Partition> inFlight, boolean waitForAll)
+            throws InterruptedException, ExecutionException {
+        boolean moved = false;
+        while (!inFlight.isEmpty() && (waitForAll || inFlight.peek().result().isDone())) {
+            Partition p = inFlight.poll();
+            PartitionResult r = p.result().get();
+            run.setRendered(run.getRendered() + r.rendered());
+            run.setSkipped(run.getSkipped() + r.skipped());
+            run.setFailed(run.getFailed() + r.failed());
+            if (run.getFailed() == 0) {
+                run.setCheckpointAccountId(p.lastAccountId());
+            }
+            moved = true;
+        }
+        if (moved) {
+            runRepo.save(run);
+        }
+    }
+
+    private PartitionResult renderPartition(List<Account> accounts, StatementPeriod period, Path dir) {
+        List<Account> todo = new ArrayList<>(accounts.size());
+        for (Account account : accounts) {
+            if (!Files.exists(fileFor(dir, account))) {
+                todo.add(account);
+            }
+        }
+        int skipped = accounts.size() - todo.size();
+        if (todo.isEmpty()) {
+            return new PartitionResult(0, skipped, 0);
+        }
+
+        // Rows arrive grouped by account id, so the lists fill in order
+        Map<Long, List<StatementLine>> lines = new HashMap<>();
+        for (StatementLine.Row row : transactionRepo.findStatementLinesForAccounts(
+                todo.get(0).getId(), todo.get(todo.size() - 1).getId(),
+                period.start(), period.end().createdAt())) {
+            lines.computeIfAbsent(row.getAccountId(), id -> new ArrayList<>()).add(StatementLine.of(row));
+        }
+
+        int rendered = 0;
+        int failed = 0;
+        for (Account account : todo) {
+            Path file = fileFor(dir, account);
+            try {
+                Path tmp = Files.createTempFile(dir, "statement_" + account.getId(), ".tmp");
+                try (OutputStream out = Files.newOutputStream(tmp)) {
+                    statementService.writeStatementPdf(account, period, lines.getOrDefault(account.getId(), List.of()), out);
+                } catch (IOException | RuntimeException e) {
+                    Files.deleteIfExists(tmp);
+                    throw e;
+                }
+                Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                rendered++;
+            } catch (IOException | RuntimeException e) {
+                log.warn("Statement for account {} ({}) failed", account.getId(), period, e);
+                failed++;
+            }
+        }
+        return new PartitionResult(rendered, skipped, failed);
+    }
+
+    private static Path fileFor(Path dir, Account account) {
+        return dir.resolve("statement_" + account.getId() + ".pdf");
+    }
+
+    @Override
+    public String connectionHoldersName() {
+        return "statement batch workers";
+    }
+
+    // renderers plus the coordinator
+    @Override
+    public int connectionHolders() {
+        return workers + 1;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        coordinator.shutdownNow();
+    }
+}
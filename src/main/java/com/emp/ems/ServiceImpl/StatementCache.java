@@ -0,0 +1,115 @@
+package com.emp.ems.ServiceImpl;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Size-bounded on-disk cache of rendered statement PDFs.
+ *
+ * Keys already encode everything that would change the file (account, period and the
+ * newest transaction id), so entries are never invalidated, only evicted least recently
+ * used once the directory grows past {@code bitbank.statement.cache.max-mb}. Files are
+ * rendered to a temp file and moved into place, so readers never see a partial PDF.
+ */
+@Component
+public class StatementCache {
+
+    private static final Logger log = LoggerFactory.getLogger(StatementCache.class);
+    private static final String SUFFIX = ".pdf";
+
+    private final Path dir;
+    private final long maxBytes;
+    private final AtomicLong size = new AtomicLong();
+
+    public StatementCache(@Value("${bitbank.statement.cache.dir:${java.io.tmpdir}/bitbank-statements}") String dir,
+                          @Value("${bitbank.statement.cache.max-mb:512}") long maxMb) throws IOException {
+        this.dir = Files.createDirectories(Path.of(dir));
+        this.maxBytes = maxMb * 1024 * 1024;
+        for (Path p : list()) {
+            size.addAndGet(Files.size(p));
+        }
+    }
+
+    /** Returns the cached file for key, rendering it with writer on a miss. */
+    public Path get(String key, Consumer<OutputStream> writer) {
+        Path file = dir.resolve(key + SUFFIX);
+        try {
+            if (Files.exists(file)) {
+                try {
+                    Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+                    return file;
+                } catch (NoSuchFileException evicted) {
+                    // lost a race with eviction; render it again
+                }
+            }
+
+            Path tmp = Files.createTempFile(dir, key, ".tmp");
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                writer.accept(out);
+            } catch (RuntimeException e) {
+                Files.deleteIfExists(tmp);
+                throw e;
+            }
+            long written = Files.size(tmp);
+            long replaced = Files.exists(file) ? Files.size(file) : 0;
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+            if (size.addAndGet(written - replaced) > maxBytes) {
+                evict(file);
+            }
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Oldest first until back under the limit; the file just written is kept
+    private synchronized void evict(Path keep) throws IOException {
+        if (size.get() <= maxBytes) return;
+
+        List<Path> files = list();
+        files.sort(Comparator.comparingLong(StatementCache::lastModified));
+        for (Path p : files) {
+            if (size.get() <= maxBytes) break;
+            if (p.equals(keep)) continue;
+            long bytes = Files.size(p);
+            if (Files.deleteIfExists(p)) {
+                size.addAndGet(-bytes);
+            }
+        }
+        log.debug("Statement cache trimmed to {} bytes", size.get());
+    }
+
+    private List<Path> list() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*" + SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        return files;
+    }
+
+    private static long lastModified(Path p) {
+        try {
+            return Files.getLastModifiedTime(p).toMillis();
+        } catch (IOException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.emp.ems.ServiceImpl;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.emp.ems.Repositories.AccountRepository;
+import com.emp.ems.Service.StatementJobService;
+import com.emp.ems.Service.StatementService;
+import com.emp.ems.config.ConnectionHolders;
+import com.emp.ems.dto.StatementJob;
+import com.emp.ems.dto.StatementPeriod;
+import com.emp.ems.entities.Account;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Renders statements off the request threads on a small fixed pool.
+ *
+ * Admission control: the pool has {@code workers} threads and a queue of
+ * {@code queue-capacity} jobs; a submit beyond that is refused straight away rather
+ * than queued without bound, so a burst of statement requests cannot pile up threads,
+ * DB connections and heap that the money endpoints need. An identical job (same account
+ * and period) still waiting or running is shared. Closed periods go through the
+ * rendered-statement cache. Finished jobs and their files are dropped after a TTL.
+ */
+@Service
+public class StatementJobServiceImpl implements StatementJobService, ConnectionHolders {
+
+    private static final Logger log = LoggerFactory.getLogger(StatementJobServiceImpl.class);
+
+    private final AccountRepository accountRepo;
+    private final StatementService statementService;
+    private final Path dir;
+    private final long ttlMinutes;
+    private final ThreadPoolExecutor pool;
+    private final ConcurrentHashMap<String, StatementJob> jobs = new ConcurrentHashMap<>();
+
+    public StatementJobServiceImpl(AccountRepository accountRepo, StatementService statementService,
+                                   MeterRegistry registry,
+                                   @Value("${bitbank.statement.jobs.dir:${java.io.tmpdir}/bitbank-statement-jobs}") String dir,
+                                   @Value("${bitbank.statement.jobs.workers:0}") int workers,
+                                   @Value("${bitbank.statement.jobs.queue-capacity:100}") int queueCapacity,
+                                   @Value("${bitbank.statement.jobs.ttl-minutes:60}") long ttlMinutes) throws IOException {
+        this.accountRepo = accountRepo;
+        this.statementService = statementService;
+        this.dir = Files.createDirectories(Path.of(dir));
+        this.ttlMinutes = ttlMinutes;
+
+        int threads = workers > 0 ? workers : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadNo = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> new Thread(r, "statement-job-" + threadNo.incrementAndGet()),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("bitbank.statement.jobs.queued", pool, p -> p.getQueue().size()).register(registry);
+        Gauge.builder("bitbank.statement.jobs.active", pool, ThreadPoolExecutor::getActiveCount).register(registry);
+    }
+
+    @Override
+    public StatementJob submit(Long accountId, StatementPeriod period) {
+        purgeExpired();
+
+        Account account = accountRepo.findById(accountId)
+                .orElseThrow(() -> new NoSuchElementException("Account not found " + accountId));
+        String periodKey = period.toString();
+        for (StatementJob existing : jobs.values()) {
+            if (!existing.isFinished() && existing.getAccountId().equals(accountId)
+                    && existing.getPeriod().equals(periodKey)) {
+                return existing;
+            }
+        }
+
+        StatementJob job = new StatementJob(UUID.randomUUID().toString(), accountId, periodKey);
+        jobs.put(job.getId(), job);
+        try {
+            pool.execute(() -> render(job, account, period));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw new IllegalStateException("Statement renderer is busy, please retry later.");
+        }
+        return job;
+    }
+
+    @Override
+    public StatementJob getJob(String id) {
+        return jobs.get(id);
+    }
+
+    private void render(StatementJob job, Account account, StatementPeriod period) {
+        job.markRunning();
+        try {
+            if (period.isClosedOn(LocalDate.now())) {
+                job.markDone(statementService.cachedStatementPdf(account, period));
+                return;
+            }
+            Path tmp = Files.createTempFile(dir, job.getId(), ".tmp");
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                statementService.writeStatementPdf(account, period, out);
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(tmp);
+                throw e;
+            }
+            job.markDone(Files.move(tmp, dir.resolve(job.getId() + ".pdf"), StandardCopyOption.ATOMIC_MOVE));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Statement job {} for account {} failed", job.getId(), job.getAccountId(), e);
+            job.markFailed("Statement generation failed.");
+        }
+    }
+
+    // Cheap enough to run on every submit; cached files belong to StatementCache and are left alone
+    private void purgeExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(ttlMinutes);
+        for (Iterator<StatementJob> it = jobs.values().iterator(); it.hasNext(); ) {
+            StatementJob job = it.next();
+            if (job.isFinished() && job.getFinishedAt().isBefore(cutoff)) {
+                it.remove();
+                Path file = job.getFile();
+                if (file != null && file.startsWith(dir)) {
+                    try {
+                        Files.deleteIfExists(file);
+                    } catch (IOException e) {
+                        log.debug("Could not delete {}", file, e);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public String connectionHoldersName() {
+        return "statement job workers";
+    }
+
+    @Override
+    public int connectionHolders() {
+        return pool.getMaximumPoolSize();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+}
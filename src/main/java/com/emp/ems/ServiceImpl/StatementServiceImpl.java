@@ -1,15 +1,26 @@
 package com.emp.ems.ServiceImpl;
 
 import java.awt.Color;
-import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Objects;
+import java.util.function.UnaryOperator;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.emp.ems.Repositories.TransactionRepository;
 import com.emp.ems.Service.StatementService;
+import com.emp.ems.dto.StatementLine;
+import com.emp.ems.dto.StatementPeriod;
+import com.emp.ems.dto.TransactionCursor;
 import com.emp.ems.entities.Account;
-import com.emp.ems.entities.Transaction;
+import com.emp.ems.entities.Money;
 import com.lowagie.text.*;
 import com.lowagie.text.pdf.PdfPCell;
 import com.lowagie.text.pdf.PdfPTable;
@@ -18,130 +29,238 @@ import com.lowagie.text.pdf.PdfWriter;
 @Service
 public class StatementServiceImpl implements StatementService {
 
+    // Fonts, colours and formatters are immutable once built and shared by every render
+    private static final Font TITLE_FONT = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18, Color.black);
+    private static final Font BANK_FONT = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 14, Color.black);
+    private static final Font HEADER_FONT = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 12, Color.black);
+    private static final Font NORMAL_FONT = FontFactory.getFont(FontFactory.HELVETICA, 10, Color.black);
+    private static final Font TABLE_HEADER_FONT = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 10);
+    private static final Font TABLE_FONT = FontFactory.getFont(FontFactory.HELVETICA, 9, Color.black);
+
+    private static final Color SUCCESS_BG = new Color(200, 255, 200);
+    private static final Color FAILURE_BG = new Color(255, 200, 200);
+
+    private static final DateTimeFormatter ROW_DATE = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
+    private static final DateTimeFormatter PERIOD_DATE = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+    private static final DateTimeFormatter GENERATED_AT = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss");
+
+    private static final String[] HEADERS = {"Date", "Type", "Description", "Amount", "Status", "Account"};
+
+    private static final int FLUSH_ROWS = 100;
+
+    private final TransactionRepository transactionRepo;
+    private final StatementCache cache;
+    private final int chunkSize;
+
+    public StatementServiceImpl(TransactionRepository transactionRepo, StatementCache cache,
+                                @Value("${bitbank.statement.chunk-size:500}") int chunkSize) {
+        this.transactionRepo = transactionRepo;
+        this.cache = cache;
+        this.chunkSize = chunkSize;
+    }
+
+    // Key changes whenever the period gains a transaction, so stale files are simply never asked for
+    @Override
+    public Path cachedStatementPdf(Account account, StatementPeriod period) {
+        TransactionCursor end = period.end();
+        List<Long> last = transactionRepo.findLastStatementTxId(account.getId(), period.start(),
+                end.createdAt(), end.id());
+        String key = account.getId() + "_" + period + "_" + (last.isEmpty() ? 0 : last.get(0));
+        return cache.get(key, out -> writeStatementPdf(account, period, out));
+    }
+
+    // Only one chunk of rows is held at a time: each chunk is read by keyset, rendered, and the
+    // incomplete table flushed to the writer, which emits finished pages to out as it goes.
     @Override
-    public byte[] generateStatementPdf(Account account, List<Transaction> transactions) {
+    public void writeStatementPdf(Account account, StatementPeriod period, OutputStream out) {
+        render(account, period, nextChunk(account.getId(), period, period.end()), prev -> {
+            if (prev.size() < chunkSize) return List.of();
+            StatementLine last = prev.get(prev.size() - 1);
+            return nextChunk(account.getId(), period, new TransactionCursor(last.createdAt(), last.id()));
+        }, out);
+    }
+
+    @Override
+    public void writeStatementPdf(Account account, StatementPeriod period, List<StatementLine> lines, OutputStream out) {
+        render(account, period, lines, prev -> List.of(), out);
+    }
+
+    // next maps the chunk just rendered to the following one; an empty list ends the table
+    private void render(Account account, StatementPeriod period, List<StatementLine> first,
+                        UnaryOperator<List<StatementLine>> next, OutputStream out) {
+        Document document = new Document(PageSize.A4);
         try {
-            Document document = new Document(PageSize.A4);
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            PdfWriter.getInstance(document, baos);
+            PdfWriter.getInstance(document, out);
             
             document.open();
 
-            // Title-Font is a class that is in built in ja 
-            Font titleFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18, Color.black);
-            Paragraph title = new Paragraph("BitBank - Account Statement", titleFont);
+            Paragraph title = new Paragraph("BitBank - Account Statement", TITLE_FONT);
             title.setAlignment(Element.ALIGN_CENTER);
             title.setSpacingAfter(20);
             document.add(title);
             
-            // Bank Header-Paragraph is a built in class
-            Font bankFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 14, Color.black);
-            Paragraph bankHeader = new Paragraph("BitBank", bankFont);
+            Paragraph bankHeader = new Paragraph("BitBank", BANK_FONT);
             bankHeader.setAlignment(Element.ALIGN_CENTER);
             bankHeader.setSpacingAfter(10);
             document.add(bankHeader);
 
             // Account Information-fetching through the parameter used in another
-            Font headerFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 12,Color.black);
-            Font normalFont = FontFactory.getFont(FontFactory.HELVETICA, 10,Color.black);
-            
-            document.add(new Paragraph("Account Number: " + account.getAccountNumber(), normalFont));
-            document.add(new Paragraph("Account Type: " + (account.getType() != null ? account.getType().toString() : "N/A"), normalFont));
+            document.add(new Paragraph("Account Number: " + account.getAccountNumber(), NORMAL_FONT));
+            document.add(new Paragraph("Account Type: " + (account.getType() != null ? account.getType().toString() : "N/A"), NORMAL_FONT));
             if (account.getCustomer() != null) {
-                document.add(new Paragraph("Customer Name: " + account.getCustomer().getFullName(), normalFont));
+                document.add(new Paragraph("Customer Name: " + account.getCustomer().getFullName(), NORMAL_FONT));
             }
-            document.add(new Paragraph("Current Balance: ₹" + String.format("%.2f", account.getBalance()), headerFont));
-            document.add(new Paragraph("\n", normalFont));
+            if (period.isAll()) {
+                document.add(new Paragraph("Current Balance: ₹" + Money.format(account.getBalanceMinor()), HEADER_FONT));
+            } else {
+                // Period statements may be cached, so they carry no live balance
+                document.add(new Paragraph("Statement Period: " + formatDate(period.from(), "start")
+                        + " to " + formatDate(period.to(), "today"), HEADER_FONT));
+            }
+            document.add(new Paragraph("\n", NORMAL_FONT));
+
+            long total = 0;
+            List<StatementLine> chunk = first;
 
             // Transactions Table
-            if (transactions != null && !transactions.isEmpty()) {
+            if (!chunk.isEmpty()) {
                 PdfPTable table = new PdfPTable(6);
                 table.setWidthPercentage(100);
                 table.setSpacingBefore(10);
+                table.setComplete(false);
 
-                // Table Header - pdf writer and o
-                String[] headers = {"Date", "Type", "Description", "Amount", "Status", "Account"};
-                Font tableHeaderFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 10);
-                
-                for (String header : headers) {
-                    PdfPCell cell = new PdfPCell(new Phrase(header, tableHeaderFont));
+                for (String header : HEADERS) {
+                    PdfPCell cell = new PdfPCell(new Phrase(header, TABLE_HEADER_FONT));
                     cell.setBackgroundColor(Color.black);
                     cell.setHorizontalAlignment(Element.ALIGN_CENTER);
                     cell.setPadding(8);
                     table.addCell(cell);
                 }
 
-                // Table Data
-                DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
-                Font tableFont = FontFactory.getFont(FontFactory.HELVETICA, 9, Color.black);
-                
-                for (Transaction txn : transactions) {
-                    // Date
-                    String dateStr = txn.getCreatedAt() != null 
-                        ? txn.getCreatedAt().format(formatter) 
-                        : "N/A";
-                    table.addCell(new PdfPCell(new Phrase(dateStr, tableFont)));
-
-                    // Type
-                    String typeStr = txn.getType() != null ? txn.getType().toString() : "N/A";
-                    table.addCell(new PdfPCell(new Phrase(typeStr, tableFont)));
-
-                    // Description
-                    String desc = txn.getDescription() != null ? txn.getDescription() : "";
-                    table.addCell(new PdfPCell(new Phrase(desc, tableFont)));
-
-                    // Amount
-                    PdfPCell amountCell = new PdfPCell(new Phrase("₹" + String.format("%.2f", txn.getAmount()), tableFont));
-                    amountCell.setHorizontalAlignment(Element.ALIGN_RIGHT);
-                    table.addCell(amountCell);
-
-                    // Status
-                    String status = txn.getStatus() != null ? txn.getStatus() : "N/A";
-                    PdfPCell statusCell = new PdfPCell(new Phrase(status, tableFont));
-                    statusCell.setBackgroundColor(status.equals("SUCCESS") 
-                        ? new Color(200, 255, 200) 
-                        : new Color(255, 200, 200));
-                    table.addCell(statusCell);
-
-                    // Account Info
-                    String accountInfo = "";
-                    if (txn.getFromAccount() != null && txn.getToAccount() != null) {
-                        accountInfo = txn.getFromAccount().getAccountNumber() + " → " + txn.getToAccount().getAccountNumber();
-                    } else if (txn.getFromAccount() != null) {
-                        accountInfo = "From: " + txn.getFromAccount().getAccountNumber();
-                    } else if (txn.getToAccount() != null) {
-                        accountInfo = "To: " + txn.getToAccount().getAccountNumber();
+                RowWriter rows = new RowWriter(table);
+                while (!chunk.isEmpty()) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        rows.add(chunk.get(i));
+                        // Lay out in slices so the pending rows (and their cell copies) stay few
+                        if (++total % FLUSH_ROWS == 0) document.add(table);
                     }
-                    table.addCell(new PdfPCell(new Phrase(accountInfo, tableFont)));
+                    // Renders the buffered rows and drops them from the table
+                    document.add(table);
+                    chunk = next.apply(chunk);
                 }
 
+                table.setComplete(true);
                 document.add(table);
             } else {
-                document.add(new Paragraph("No transactions found for this account.", normalFont));
+                document.add(new Paragraph(period.isAll() ? "No transactions found for this account."
+                                                          : "No transactions found for this period.", NORMAL_FONT));
             }
 
             // Summary
-            document.add(new Paragraph("\n", normalFont));
-            document.add(new Paragraph("Total Transactions: " + (transactions != null ? transactions.size() : 0), headerFont));
-            document.add(new Paragraph("Generated on: " + java.time.LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss")), normalFont));
+            document.add(new Paragraph("\n", NORMAL_FONT));
+            document.add(new Paragraph("Total Transactions: " + total, HEADER_FONT));
+            document.add(new Paragraph("Generated on: " + LocalDateTime.now().format(GENERATED_AT), NORMAL_FONT));
 
             document.close();
-            return baos.toByteArray();
-        } catch (Exception e) {
-            e.printStackTrace();
-            // Fallback to simple text if PDF generation fails Generation using the classes
-            StringBuilder sb = new StringBuilder();
-            sb.append("BitBank - Account Statement\n");
-            sb.append("Account Number: ").append(account.getAccountNumber()).append("\n");
-            sb.append("Balance: ₹").append(String.format("%.2f", account.getBalance())).append("\n\n");
-            sb.append("Transactions:\n");
-            if (transactions != null) {
-                for (Transaction t : transactions) {
-                    sb.append(t.getType()).append(" | ₹").append(String.format("%.2f", t.getAmount()))
-                      .append(" | ").append(t.getDescription()).append("\n");
+        } catch (DocumentException e) {
+            // Part of the PDF may already be on the wire, so there is no text fallback here
+            throw new RuntimeException("Failed to generate statement for account " + account.getAccountNumber(), e);
+        }
+    }
+
+    private List<StatementLine> nextChunk(Long accountId, StatementPeriod period, TransactionCursor after) {
+        return transactionRepo.findStatementLinesBefore(accountId, period.start(), after.createdAt(), after.id(),
+                chunkSize).stream().map(StatementLine::of).toList();
+    }
+
+    private static String formatDate(LocalDate date, String open) {
+        return date != null ? date.format(PERIOD_DATE) : open;
+    }
+
+    /**
+     * Adds transaction rows to one table. Each column has a template cell that is
+     * configured once; PdfPTable copies the cell it is given, so setting the phrase on
+     * the template and adding it costs a single cell per column instead of two. Text
+     * that repeats between rows (the minute of the timestamp, the counterparty) is
+     * reused rather than formatted again. One instance per render: not thread-safe.
+     */
+    private static final class RowWriter {
+
+        private final PdfPTable table;
+        private final PdfPCell plain = cell(Element.ALIGN_LEFT);
+        private final PdfPCell amount = cell(Element.ALIGN_RIGHT);
+        private final PdfPCell status = cell(Element.ALIGN_LEFT);
+        private final StringBuilder sb = new StringBuilder(64);
+
+        private long lastMinute = Long.MIN_VALUE;
+        private String lastDate;
+        private String lastFrom;
+        private String lastTo;
+        private String lastAccountInfo;
+
+        RowWriter(PdfPTable table) {
+            this.table = table;
+        }
+
+        void add(StatementLine txn) {
+            // Date
+            add(plain, date(txn.createdAt()));
+
+            // Type
+            add(plain, txn.type() != null ? txn.type().name() : "N/A");
+
+            // Description
+            add(plain, txn.description() != null ? txn.description() : "");
+
+            // Amount
+            sb.setLength(0);
+            add(amount, Money.appendTo(sb.append('₹'), txn.amountMinor()).toString());
+
+            // Status
+            String s = txn.status() != null ? txn.status() : "N/A";
+            status.setBackgroundColor(s.equals("SUCCESS") ? SUCCESS_BG : FAILURE_BG);
+            add(status, s);
+
+            // Account Info
+            add(plain, accountInfo(txn.fromAccountNumber(), txn.toAccountNumber()));
+        }
+
+        private void add(PdfPCell template, String text) {
+            template.setPhrase(new Phrase(text, TABLE_FONT));
+            table.addCell(template);
+        }
+
+        private String date(LocalDateTime at) {
+            if (at == null) return "N/A";
+            long minute = at.toEpochSecond(ZoneOffset.UTC) / 60;
+            if (minute != lastMinute) {
+                lastMinute = minute;
+                lastDate = ROW_DATE.format(at);
+            }
+            return lastDate;
+        }
+
+        private String accountInfo(String from, String to) {
+            if (!Objects.equals(from, lastFrom) || !Objects.equals(to, lastTo) || lastAccountInfo == null) {
+                lastFrom = from;
+                lastTo = to;
+                sb.setLength(0);
+                if (from != null && to != null) {
+                    sb.append(from).append(" → ").append(to);
+                } else if (from != null) {
+                    sb.append("From: ").append(from);
+                } else if (to != null) {
+                    sb.append("To: ").append(to);
                 }
+                lastAccountInfo = sb.toString();
             }
-            return sb.toString().getBytes();
+            return lastAccountInfo;
+        }
+
+        private static PdfPCell cell(int alignment) {
+            PdfPCell cell = new PdfPCell();
+            cell.setHorizontalAlignment(alignment);
+            return cell;
         }
     }
 }
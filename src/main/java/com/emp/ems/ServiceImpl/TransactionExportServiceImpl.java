@@ -0,0 +1,191 @@
+package com.emp.ems.ServiceImpl;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.format.DateTimeFormatter;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import com.emp.ems.Repositories.TransactionExportRepository;
+import com.emp.ems.Service.TransactionExportService;
+import com.emp.ems.config.ConnectionHolders;
+import com.emp.ems.dto.ExportFormat;
+import com.emp.ems.dto.StatementPeriod;
+import com.emp.ems.entities.Money;
+
+/**
+ * CSV and NDJSON exports written field by field from the JDBC cursor into a buffered
+ * writer, so heap use is the same for ten rows or ten million. Amounts are rupees with
+ * two decimals, timestamps ISO local date-time. Exports run on the MVC async threads, whose
+ * queue is unbounded, so at most core-size of them at once, each reading its two sides.
+ */
+@Service
+public class TransactionExportServiceImpl implements TransactionExportService, ConnectionHolders {
+
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("uuuu-MM-dd'T'HH:mm:ss");
+    private static final String CSV_HEADER = "id,created_at,type,status,amount,from_account,to_account,description\r\n";
+    private static final int BUFFER_CHARS = 64 * 1024;
+
+    private final TransactionExportRepository exportRepo;
+    private final int asyncThreads;
+
+    public TransactionExportServiceImpl(TransactionExportRepository exportRepo,
+                                        @Value("${spring.task.execution.pool.core-size:8}") int asyncThreads) {
+        this.exportRepo = exportRepo;
+        this.asyncThreads = asyncThreads;
+    }
+
+    @Override
+    public void exportAccount(Long accountId, StatementPeriod period, ExportFormat format, OutputStream out) {
+        write(format, out, handler -> exportRepo.streamByAccount(accountId, period, handler));
+    }
+
+    @Override
+    public void exportCustomer(Long customerId, StatementPeriod period, ExportFormat format, OutputStream out) {
+        write(format, out, handler -> exportRepo.streamByCustomer(customerId, period, handler));
+    }
+
+    @Override
+    public String connectionHoldersName() {
+        return "export streams";
+    }
+
+    @Override
+    public int connectionHolders() {
+        return 2 * asyncThreads;
+    }
+
+    private void write(ExportFormat format, OutputStream out, Consumer<RowCallbackHandler> query) {
+        try {
+            Writer w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_CHARS);
+            StringBuilder amount = new StringBuilder(24);
+            if (format == ExportFormat.CSV) {
+                w.write(CSV_HEADER);
+                query.accept(rs -> csvRow(rs, w, amount));
+            } else {
+                query.accept(rs -> jsonRow(rs, w, amount));
+            }
+            w.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void csvRow(ResultSet rs, Writer w, StringBuilder amount) throws SQLException {
+        try {
+            w.write(Long.toString(rs.getLong(1)));
+            w.write(',');
+            timestamp(rs.getTimestamp(2), w);
+            w.write(',');
+            csv(rs.getString(3), w);
+            w.write(',');
+            csv(rs.getString(4), w);
+            w.write(',');
+            amount.setLength(0);
+            w.append(Money.appendTo(amount, rs.getLong(5)));
+            w.write(',');
+            csv(rs.getString(6), w);
+            w.write(',');
+            csv(rs.getString(7), w);
+            w.write(',');
+            csv(rs.getString(8), w);
+            w.write("\r\n");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void jsonRow(ResultSet rs, Writer w, StringBuilder amount) throws SQLException {
+        try {
+            w.write("{\"id\":");
+            w.write(Long.toString(rs.getLong(1)));
+            w.write(",\"createdAt\":");
+            Timestamp createdAt = rs.getTimestamp(2);
+            if (createdAt == null) {
+                w.write("null");
+            } else {
+                w.write('"');
+                timestamp(createdAt, w);
+                w.write('"');
+            }
+            w.write(",\"type\":");
+            json(rs.getString(3), w);
+            w.write(",\"status\":");
+            json(rs.getString(4), w);
+            w.write(",\"amount\":");
+            amount.setLength(0);
+            w.append(Money.appendTo(amount, rs.getLong(5)));
+            w.write(",\"fromAccount\":");
+            json(rs.getString(6), w);
+            w.write(",\"toAccount\":");
+            json(rs.getString(7), w);
+            w.write(",\"description\":");
+            json(rs.getString(8), w);
+            w.write("}\n");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void timestamp(Timestamp ts, Writer w) throws IOException {
+        if (ts != null) TIMESTAMP.formatTo(ts.toLocalDateTime(), w);
+    }
+
+    // RFC 4180: quote fields containing a separator, quote or line break; double embedded quotes
+    private static void csv(String value, Writer w) throws IOException {
+        if (value == null) return;
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            w.write(value);
+            return;
+        }
+        w.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') w.write('"');
+            w.write(c);
+        }
+        w.write('"');
+    }
+
+    private static void json(String value, Writer w) throws IOException {
+        if (value == null) {
+            w.write("null");
+            return;
+        }
+        w.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> w.write("\\\"");
+                case '\\' -> w.write("\\\\");
+                case '\n' -> w.write("\\n");
+                case '\r' -> w.write("\\r");
+                case '\t' -> w.write("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        w.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        w.write(c);
+                    }
+                }
+            }
+        }
+        w.write('"');
+    }
+}
@@ -1,12 +1,28 @@
 package com.emp.ems.ServiceImpl;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.emp.ems.Repositories.AccountRepository;
 import com.emp.ems.Repositories.TransactionRepository;
+import com.emp.ems.Repositories.TransferBatchRepository;
+import com.emp.ems.Repositories.TransferBatchRepository.LockedBalance;
 import com.emp.ems.Service.TransactionService;
+import com.emp.ems.dto.AccountMeta;
+import com.emp.ems.dto.BatchTransferItemResult;
+import com.emp.ems.dto.BatchTransferResponse;
+import com.emp.ems.dto.TransferOutcome;
+import com.emp.ems.dto.TransferRequest;
+import com.emp.ems.dto.TransferStatus;
 import com.emp.ems.entities.Account;
+import com.emp.ems.entities.Money;
 import com.emp.ems.entities.Transaction;
 import com.emp.ems.entities.TransactionType;
 
@@ -15,55 +31,94 @@ public class TransactionServiceImpl implements TransactionService {
 
     private final AccountRepository acc;
     private final TransactionRepository tran;
-
-    public TransactionServiceImpl(AccountRepository acc, TransactionRepository tran) {
+    private final TransferBatchRepository batchRepo;
+    private final AccountLockManager locks;
+    private final AccountLookupCache accounts;
+    private final TransactionTemplate txTemplate;
+
+    public TransactionServiceImpl(AccountRepository acc, TransactionRepository tran,
+                                  TransferBatchRepository batchRepo, AccountLockManager locks,
+                                  AccountLookupCache accounts, PlatformTransactionManager txManager) {
         this.acc = acc;
         this.tran = tran;
+        this.batchRepo = batchRepo;
+        this.locks = locks;
+        this.accounts = accounts;
+        this.txTemplate = new TransactionTemplate(txManager);
     }
 
+    // In-JVM stripes are taken before the DB transaction starts and released after it commits,
+    // so a thread never holds a row lock while queueing for a stripe.
     @Override
-    @Transactional
-    public boolean transfer(String fromAcc, String toAcc, double amount) {
+    public TransferOutcome transfer(String fromAcc, String toAcc, long amount) {
+        // Existence comes from the near cache; unknown accounts are rejected without any lock
+        AccountMeta to = accounts.find(toAcc);
+        if (to == null) return TransferOutcome.of(TransferStatus.UNKNOWN_TARGET);
+        AccountMeta from = accounts.find(fromAcc);
+        if (from == null) return TransferOutcome.of(TransferStatus.UNKNOWN_SOURCE);
+        if (amount <= 0) return TransferOutcome.of(TransferStatus.INVALID_AMOUNT);
+
+        return locks.withLocks(() -> txTemplate.execute(status -> doTransfer(from, to, amount)),
+                fromAcc, toAcc);
+    }
 
-        Account from = acc.findByAccountNumber(fromAcc);
-        Account to = acc.findByAccountNumber(toAcc);
+    // Exactly one (locking) read per account; the outcome tells the caller why it failed
+    private TransferOutcome doTransfer(AccountMeta fromMeta, AccountMeta toMeta, long amount) {
+        // Row locks in a fixed (account-number) order so A→B and B→A cannot deadlock in the DB
+        Account from;
+        Account to;
+        if (fromMeta.accountNumber().compareTo(toMeta.accountNumber()) < 0) {
+            from = lock(fromMeta);
+            to = lock(toMeta);
+        } else {
+            to = lock(toMeta);
+            from = lock(fromMeta);
+        }
 
-        if (from == null || to == null || amount <= 0 || amount > from.getBalance()) {
-            return false;
+        if (to == null) return TransferOutcome.of(TransferStatus.UNKNOWN_TARGET);
+        if (from == null) return TransferOutcome.of(TransferStatus.UNKNOWN_SOURCE);
+        if (amount > from.getBalanceMinor()) {
+            return TransferOutcome.of(TransferStatus.INSUFFICIENT_FUNDS, from.getBalanceMinor(), to.getBalanceMinor());
         }
 
-        from.setBalance(from.getBalance() - amount);
-        to.setBalance(to.getBalance() + amount);
+        from.setBalanceMinor(Money.subtract(from.getBalanceMinor(), amount));
+        to.setBalanceMinor(Money.add(to.getBalanceMinor(), amount));
 
         acc.save(from);
         acc.save(to);
 
         Transaction tx = new Transaction();
         tx.setType(TransactionType.TRANSFER);
-        tx.setAmount(amount);
-        tx.setDescription("Transfer from " + fromAcc + " to " + toAcc);
+        tx.setAmountMinor(amount);
+        tx.setDescription("Transfer from " + fromMeta.accountNumber() + " to " + toMeta.accountNumber());
         tx.setFromAccount(from);
         tx.setToAccount(to);
         tx.setStatus("SUCCESS");
         tran.save(tx);
 
-        return true;
+        return TransferOutcome.of(TransferStatus.SUCCESS, from.getBalanceMinor(), to.getBalanceMinor());
     }
 
     @Override
-    @Transactional
-    public boolean deposit(String accountNumber, double amount) {
+    public boolean deposit(String accountNumber, long amount) {
+        if (amount <= 0) return false;
+        AccountMeta meta = accounts.find(accountNumber);
+        if (meta == null) return false;
+        return locks.withLocks(() -> txTemplate.execute(status -> doDeposit(meta, amount)),
+                accountNumber);
+    }
 
-        Account account = acc.findByAccountNumber(accountNumber);
-        if (account == null || amount <= 0) return false;
+    private boolean doDeposit(AccountMeta meta, long amount) {
+        Account account = lock(meta);
+        if (account == null) return false;
 
-        account.setBalance(account.getBalance() + amount);
+        account.setBalanceMinor(Money.add(account.getBalanceMinor(), amount));
         acc.save(account);
 
         Transaction tx = new Transaction();
         tx.setType(TransactionType.DEPOSIT);
-        tx.setAmount(amount);
-        tx.setDescription("Deposit into " + accountNumber);
+        tx.setAmountMinor(amount);
+        tx.setDescription("Deposit into " + meta.accountNumber());
         tx.setToAccount(account);
         tx.setStatus("SUCCESS");
         tran.save(tx);
@@ -72,25 +127,100 @@ public class TransactionServiceImpl implements TransactionService {
     }
 
     @Override
-    @Transactional
-    public boolean withdraw(String accountNumber, double amount) {
+    public boolean withdraw(String accountNumber, long amount) {
+        if (amount <= 0) return false;
+        AccountMeta meta = accounts.find(accountNumber);
+        if (meta == null) return false;
+        return locks.withLocks(() -> txTemplate.execute(status -> doWithdraw(meta, amount)),
+                accountNumber);
+    }
 
-        Account account = acc.findByAccountNumber(accountNumber);
-        if (account == null || amount <= 0 || amount > account.getBalance()) {
+    private boolean doWithdraw(AccountMeta meta, long amount) {
+        Account account = lock(meta);
+        if (account == null || amount > account.getBalanceMinor()) {
             return false;
         }
 
-        account.setBalance(account.getBalance() - amount);
+        account.setBalanceMinor(Money.subtract(account.getBalanceMinor(), amount));
         acc.save(account);
 
         Transaction tx = new Transaction();
         tx.setType(TransactionType.WITHDRAW);
-        tx.setAmount(amount);
-        tx.setDescription("Withdraw from " + accountNumber);
+        tx.setAmountMinor(amount);
+        tx.setDescription("Withdraw from " + meta.accountNumber());
         tx.setFromAccount(account);
         tx.setStatus("SUCCESS");
         tran.save(tx);
 
         return true;
     }
+
+    // Primary-key row lock using the cached id; a vanished row drops the stale cache entry
+    private Account lock(AccountMeta meta) {
+        Account account = acc.findByIdForUpdate(meta.id());
+        if (account == null) {
+            accounts.evict(meta.accountNumber());
+        }
+        return account;
+    }
+
+    // Batch path: one locking IN query for every account, balances moved in memory,
+    // then one batched UPDATE and batched INSERTs (hibernate.jdbc.batch_size). In-JVM stripes are skipped here;
+    // the DB row locks are taken in the same account-number order as transfer().
+    @Override
+    @Transactional
+    public BatchTransferResponse batchTransfer(List<TransferRequest> transfers) {
+        TreeSet<String> numbers = new TreeSet<>();
+        for (TransferRequest t : transfers) {
+            if (t == null) continue;
+            if (t.fromAccount != null) numbers.add(t.fromAccount.trim());
+            if (t.toAccount != null) numbers.add(t.toAccount.trim());
+        }
+        Map<String, LockedBalance> balances = batchRepo.lockBalances(numbers);
+
+        List<BatchTransferItemResult> results = new ArrayList<>(transfers.size());
+        List<Transaction> rows = new ArrayList<>(transfers.size());
+        int succeeded = 0;
+
+        for (int i = 0; i < transfers.size(); i++) {
+            TransferRequest t = transfers.get(i);
+            String fromAcc = t != null && t.fromAccount != null ? t.fromAccount.trim() : null;
+            String toAcc = t != null && t.toAccount != null ? t.toAccount.trim() : null;
+            LockedBalance from = fromAcc != null ? balances.get(fromAcc) : null;
+            LockedBalance to = toAcc != null ? balances.get(toAcc) : null;
+            long amount = t != null ? Money.ofRupees(t.amount) : 0;
+
+            if (from == null) {
+                results.add(new BatchTransferItemResult(i, TransferStatus.UNKNOWN_SOURCE, "Unknown sender account " + fromAcc));
+            } else if (to == null) {
+                results.add(new BatchTransferItemResult(i, TransferStatus.UNKNOWN_TARGET, "Unknown recipient account " + toAcc));
+            } else if (amount <= 0) {
+                results.add(new BatchTransferItemResult(i, TransferStatus.INVALID_AMOUNT, "Transfer amount must be greater than 0"));
+            } else if (amount > from.balance) {
+                results.add(new BatchTransferItemResult(i, TransferStatus.INSUFFICIENT_FUNDS, "Insufficient balance"));
+            } else {
+                from.balance = Money.subtract(from.balance, amount);
+                to.balance = Money.add(to.balance, amount);
+                from.dirty = true;
+                to.dirty = true;
+                Transaction tx = new Transaction();
+                tx.setType(TransactionType.TRANSFER);
+                tx.setAmountMinor(amount);
+                tx.setDescription("Transfer from " + fromAcc + " to " + toAcc);
+                tx.setFromAccount(acc.getReferenceById(from.id));
+                tx.setToAccount(acc.getReferenceById(to.id));
+                tx.setFromCustomerId(from.customerId);
+                tx.setToCustomerId(to.customerId);
+                tx.setStatus("SUCCESS");
+                rows.add(tx);
+                results.add(new BatchTransferItemResult(i, TransferStatus.SUCCESS, null));
+                succeeded++;
+            }
+        }
+
+        batchRepo.updateBalances(balances.values());
+        tran.saveAll(rows); // flushed as batched INSERTs at commit
+
+        return new BatchTransferResponse(succeeded, transfers.size() - succeeded, results);
+    }
 }
@@ -0,0 +1,14 @@
+package com.emp.ems.config;
+
+/**
+ * A bean whose threads can each hold a database connection at the same time, such as a
+ * worker pool. {@link ConnectionPoolCheck} adds these up against the connection pool.
+ */
+public interface ConnectionHolders {
+
+    /** Shown in the pool check's log line, e.g. "interest workers". */
+    String connectionHoldersName();
+
+    /** Threads that can hold a connection at once, as the bean actually sized its pool. */
+    int connectionHolders();
+}
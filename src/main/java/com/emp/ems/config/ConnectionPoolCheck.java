@@ -0,0 +1,69 @@
+package com.emp.ems.config;
+
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import jakarta.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Keeps the connection pool larger than the threads that can hold a connection at once.
+ *
+ * The pooled table id generator takes a second connection of its own while the caller's
+ * transaction holds one, under the optimizer's lock. If every connection is held by a
+ * thread waiting for that lock, the generator waits for a connection that never comes.
+ * With at least one connection more than there are threads, it always gets one.
+ *
+ * Threads are Tomcat's and the scheduler's plus every {@link ConnectionHolders} bean, each
+ * counted as the bean sized its pool (per-core defaults included). A configured pool that
+ * is too small is grown to fit, with a warning, rather than failing the start on a host
+ * with more cores than it was sized for.
+ */
+@Component
+public class ConnectionPoolCheck {
+
+    private static final Logger log = LoggerFactory.getLogger(ConnectionPoolCheck.class);
+
+    private final DataSource dataSource;
+    private final int tomcatThreads;
+    private final int schedulerThreads;
+    private final List<ConnectionHolders> holders;
+
+    public ConnectionPoolCheck(DataSource dataSource, List<ConnectionHolders> holders,
+                               @Value("${server.tomcat.threads.max:200}") int tomcatThreads,
+                               @Value("${spring.task.scheduling.pool.size:1}") int schedulerThreads) {
+        this.dataSource = dataSource;
+        this.holders = holders;
+        this.tomcatThreads = tomcatThreads;
+        this.schedulerThreads = schedulerThreads;
+    }
+
+    @PostConstruct
+    public void check() {
+        if (!(dataSource instanceof HikariDataSource hikari)) return;
+        int threads = tomcatThreads + schedulerThreads;
+        StringBuilder counts = new StringBuilder("tomcat ").append(tomcatThreads)
+                .append(", scheduler ").append(schedulerThreads);
+        for (ConnectionHolders h : holders) {
+            threads += h.connectionHolders();
+            counts.append(", ").append(h.connectionHoldersName()).append(' ').append(h.connectionHolders());
+        }
+        int poolSize = hikari.getMaximumPoolSize();
+        if (poolSize <= threads) {
+            // maximumPoolSize is one of Hikari's runtime-settable properties
+            hikari.setMaximumPoolSize(threads + 1);
+            log.warn("spring.datasource.hikari.maximum-pool-size is {} but up to {} threads can hold a connection ({}); "
+                    + "grew the pool to {}, make sure the database allows that many connections or lower the thread counts",
+                    poolSize, threads, counts, threads + 1);
+            return;
+        }
+        log.info("Connection pool {} for up to {} connection-holding threads ({})", poolSize, threads, counts);
+    }
+}
@@ -0,0 +1,70 @@
+package com.emp.ems.config;
+
+import jakarta.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Seeds {@code id_sequences} for tables that used AUTO_INCREMENT ids before the
+ * switch to the pooled table generator.
+ *
+ * The pooled optimizer hands out the block below the stored value, so each
+ * row is raised to at least MAX(id) + allocationSize + 1. Rows are only ever
+ * raised, never lowered, so this is safe to run on every start.
+ *
+ * Runs before the EntityManagerFactory exists (see JpaMigrationOrder), so no insert can
+ * draw ids from a row that has not been raised yet. id_sequences is created here, in the
+ * shape Hibernate would give it, when an upgraded database does not have it yet; tables
+ * that do not exist yet have no ids to stay clear of and are left to the generator.
+ */
+@Component
+public class IdSequenceMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(IdSequenceMigration.class);
+
+    // table (= pkColumnValue), allocationSize from the entity's @TableGenerator
+    private static final Object[][] SEQUENCES = {
+            {"accounts", 50},
+            {"customers", 50},
+            {"transactions", 500},
+            {"scheduled_transactions", 50},
+            {"fixed_deposits", 50},
+            {"profile_update_requests", 50},
+            {"idempotency_keys", 50},
+            {"statement_batch_runs", 50},
+            {"interest_runs", 50},
+            {"interest_run_ranges", 500},
+    };
+
+    private final JdbcTemplate jdbc;
+
+    public IdSequenceMigration(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @PostConstruct
+    public void migrate() {
+        boolean created = false;
+        for (Object[] s : SEQUENCES) {
+            String table = (String) s[0];
+            int allocationSize = (Integer) s[1];
+            if (!SchemaInfo.tableExists(jdbc, table)) continue;
+            if (!created) {
+                jdbc.execute("CREATE TABLE IF NOT EXISTS id_sequences (seq_name VARCHAR(255) NOT NULL, " +
+                        "next_val BIGINT, PRIMARY KEY (seq_name))");
+                created = true;
+            }
+
+            Long maxId = jdbc.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+            long floor = (maxId == null ? 0 : maxId) + allocationSize + 1;
+
+            jdbc.update("INSERT INTO id_sequences (seq_name, next_val) VALUES (?, ?) " +
+                        "ON DUPLICATE KEY UPDATE next_val = GREATEST(next_val, VALUES(next_val))",
+                        table, floor);
+            log.debug("id_sequences[{}] >= {}", table, floor);
+        }
+    }
+}
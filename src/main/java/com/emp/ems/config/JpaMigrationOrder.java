@@ -0,0 +1,17 @@
+package com.emp.ems.config;
+
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Makes the EntityManagerFactory depend on the startup migrations (the way Boot orders
+ * Flyway), so they have finished before Hibernate updates the schema or hands out a single
+ * pooled id, and long before Tomcat or the @Scheduled jobs start.
+ */
+@Component
+public class JpaMigrationOrder extends EntityManagerFactoryDependsOnPostProcessor {
+
+    public JpaMigrationOrder() {
+        super(IdSequenceMigration.class, MoneyColumnMigration.class, TransactionCustomerMigration.class);
+    }
+}
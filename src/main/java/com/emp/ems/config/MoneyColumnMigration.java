@@ -0,0 +1,64 @@
+package com.emp.ems.config;
+
+import jakarta.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * One-off migration from the old DOUBLE rupee columns to the BIGINT paise columns.
+ *
+ * Hibernate's ddl-auto=update would add the new *_minor columns but leave the old
+ * NOT NULL double columns in place, which would break every insert. For each legacy
+ * column that is still NOT NULL this adds the paise column if needed, copies
+ * ROUND(old * 100) into it and then relaxes the old one to NULL. The old values are
+ * kept for audit and can be dropped by hand once verified. Safe to run on every start.
+ *
+ * Runs before the EntityManagerFactory exists (see JpaMigrationOrder), so nothing reads
+ * or writes money before the copy is done.
+ */
+@Component
+public class MoneyColumnMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(MoneyColumnMigration.class);
+
+    // table, legacy rupee column, new paise column
+    private static final String[][] COLUMNS = {
+            {"accounts", "balance", "balance_minor"},
+            {"transactions", "amount", "amount_minor"},
+            {"fixed_deposits", "principal", "principal_minor"},
+            {"scheduled_transactions", "amount", "amount_minor"},
+    };
+
+    private final JdbcTemplate jdbc;
+
+    public MoneyColumnMigration(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @PostConstruct
+    public void migrate() {
+        for (String[] c : COLUMNS) {
+            migrate(c[0], c[1], c[2]);
+        }
+    }
+
+    private void migrate(String table, String legacy, String minor) {
+        Integer pending = jdbc.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.COLUMNS " +
+                "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND COLUMN_NAME = ? AND IS_NULLABLE = 'NO'",
+                Integer.class, table, legacy);
+        if (pending == null || pending == 0) {
+            return;
+        }
+
+        if (!SchemaInfo.columnExists(jdbc, table, minor)) {
+            jdbc.execute("ALTER TABLE " + table + " ADD COLUMN " + minor + " BIGINT NOT NULL DEFAULT 0");
+        }
+        int rows = jdbc.update("UPDATE " + table + " SET " + minor + " = ROUND(" + legacy + " * 100)");
+        jdbc.execute("ALTER TABLE " + table + " MODIFY " + legacy + " DOUBLE NULL");
+        log.info("Migrated {}.{} -> {} ({} rows)", table, legacy, minor, rows);
+    }
+}
@@ -0,0 +1,15 @@
+package com.emp.ems.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Turns on the {@code @Scheduled} jobs (standing orders, daily interest, idempotency
+ * purge). They share Boot's task scheduler, sized by {@code spring.task.scheduling.pool.size}
+ * so a long interest run does not hold up standing orders; the jobs do their heavy work
+ * on their own worker pools and only use the scheduler thread to coordinate.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,25 @@
+package com.emp.ems.config;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * information_schema lookups for the startup migrations, which run before Hibernate's
+ * ddl-auto has created or updated anything: on a fresh database none of the tables exist
+ * yet and there is nothing to migrate.
+ */
+final class SchemaInfo {
+
+    private SchemaInfo() { }
+
+    static boolean tableExists(JdbcTemplate jdbc, String table) {
+        Integer n = jdbc.queryForObject("SELECT COUNT(*) FROM information_schema.TABLES " +
+                "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?", Integer.class, table);
+        return n != null && n > 0;
+    }
+
+    static boolean columnExists(JdbcTemplate jdbc, String table, String column) {
+        Integer n = jdbc.queryForObject("SELECT COUNT(*) FROM information_schema.COLUMNS " +
+                "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND COLUMN_NAME = ?", Integer.class, table, column);
+        return n != null && n > 0;
+    }
+}
@@ -0,0 +1,53 @@
+package com.emp.ems.config;
+
+import jakarta.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Backfills {@code transactions.from_customer_id / to_customer_id} for rows written
+ * before those columns existed. New rows get them from {@code Transaction#fillCustomerIds}.
+ * Only touches rows that still have a NULL next to a non-NULL account, so it is a no-op
+ * once the backfill has run.
+ *
+ * Runs before the EntityManagerFactory exists (see JpaMigrationOrder), so the customer feed
+ * never serves a page with rows still missing their customer; adds the columns itself on a
+ * database that predates them.
+ */
+@Component
+public class TransactionCustomerMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionCustomerMigration.class);
+
+    private final JdbcTemplate jdbc;
+
+    public TransactionCustomerMigration(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @PostConstruct
+    public void migrate() {
+        if (!SchemaInfo.tableExists(jdbc, "transactions") || !SchemaInfo.tableExists(jdbc, "accounts")) {
+            return;
+        }
+        for (String column : new String[] { "from_customer_id", "to_customer_id" }) {
+            if (!SchemaInfo.columnExists(jdbc, "transactions", column)) {
+                jdbc.execute("ALTER TABLE transactions ADD COLUMN " + column + " BIGINT NULL");
+            }
+        }
+        int from = jdbc.update(
+                "UPDATE transactions t JOIN accounts a ON a.id = t.from_account_id " +
+                "SET t.from_customer_id = a.customer_id " +
+                "WHERE t.from_customer_id IS NULL AND a.customer_id IS NOT NULL");
+        int to = jdbc.update(
+                "UPDATE transactions t JOIN accounts a ON a.id = t.to_account_id " +
+                "SET t.to_customer_id = a.customer_id " +
+                "WHERE t.to_customer_id IS NULL AND a.customer_id IS NOT NULL");
+        if (from + to > 0) {
+            log.info("Backfilled customer ids on transactions (from: {}, to: {})", from, to);
+        }
+    }
+}
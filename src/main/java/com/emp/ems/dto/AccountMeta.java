@@ -0,0 +1,6 @@
+package com.emp.ems.dto;
+
+import com.emp.ems.entities.AccountType;
+
+// Immutable facts about an account that are safe to cache; never carries the balance
+public record AccountMeta(Long id, String accountNumber, AccountType type, Long customerId, String sortCode) { }
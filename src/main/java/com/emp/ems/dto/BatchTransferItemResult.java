@@ -0,0 +1,18 @@
+package com.emp.ems.dto;
+
+public class BatchTransferItemResult {
+    private int index;
+    private TransferStatus status;
+    private String message;
+
+    public BatchTransferItemResult(int index, TransferStatus status, String message) {
+        this.index = index;
+        this.status = status;
+        this.message = message;
+    }
+
+    // Getters
+    public int getIndex() { return index; }
+    public TransferStatus getStatus() { return status; }
+    public String getMessage() { return message; }
+}
@@ -0,0 +1,7 @@
+package com.emp.ems.dto;
+
+import java.util.List;
+
+public class BatchTransferRequest {
+    public List<TransferRequest> transfers;
+}
@@ -0,0 +1,20 @@
+package com.emp.ems.dto;
+
+import java.util.List;
+
+public class BatchTransferResponse {
+    private int succeeded;
+    private int failed;
+    private List<BatchTransferItemResult> results;
+
+    public BatchTransferResponse(int succeeded, int failed, List<BatchTransferItemResult> results) {
+        this.succeeded = succeeded;
+        this.failed = failed;
+        this.results = results;
+    }
+
+    // Getters
+    public int getSucceeded() { return succeeded; }
+    public int getFailed() { return failed; }
+    public List<BatchTransferItemResult> getResults() { return results; }
+}
@@ -0,0 +1,27 @@
+package com.emp.ems.dto;
+
+/** Raw transaction export formats (see TransactionExportService). */
+public enum ExportFormat {
+
+    CSV("text/csv", "csv"),
+    NDJSON("application/x-ndjson", "ndjson");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() { return contentType; }
+    public String getExtension() { return extension; }
+
+    // Case-insensitive; IllegalArgumentException for anything else
+    public static ExportFormat parse(String value) {
+        for (ExportFormat f : values()) {
+            if (f.extension.equalsIgnoreCase(value)) return f;
+        }
+        throw new IllegalArgumentException("Unsupported export format: " + value + " (use csv or ndjson).");
+    }
+}
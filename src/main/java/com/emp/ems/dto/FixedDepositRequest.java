@@ -0,0 +1,7 @@
+package com.emp.ems.dto;
+
+public class FixedDepositRequest {
+    public String accountNumber; // funds the deposit and is credited when it closes
+    public double amount;
+    public int termMonths;
+}
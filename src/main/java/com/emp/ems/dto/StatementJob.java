@@ -0,0 +1,63 @@
+package com.emp.ems.dto;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * An asynchronous statement render. Status moves QUEUED → RUNNING → DONE or FAILED;
+ * fields are written by the renderer thread and read by polling requests.
+ */
+public class StatementJob {
+
+    public enum Status { QUEUED, RUNNING, DONE, FAILED }
+
+    private final String id;
+    private final Long accountId;
+    private final String period;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+    private volatile Status status = Status.QUEUED;
+    private volatile String error;
+    private volatile LocalDateTime finishedAt;
+    private volatile Path file;
+
+    public StatementJob(String id, Long accountId, String period) {
+        this.id = id;
+        this.accountId = accountId;
+        this.period = period;
+    }
+
+    public void markRunning() {
+        status = Status.RUNNING;
+    }
+
+    public void markDone(Path file) {
+        this.file = file;
+        this.finishedAt = LocalDateTime.now();
+        this.status = Status.DONE;
+    }
+
+    public void markFailed(String error) {
+        this.error = error;
+        this.finishedAt = LocalDateTime.now();
+        this.status = Status.FAILED;
+    }
+
+    @JsonIgnore
+    public boolean isFinished() {
+        return status == Status.DONE || status == Status.FAILED;
+    }
+
+    // Getters
+    public String getId() { return id; }
+    public Long getAccountId() { return accountId; }
+    public String getPeriod() { return period; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public Status getStatus() { return status; }
+    public String getError() { return error; }
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+
+    @JsonIgnore
+    public Path getFile() { return file; }
+}
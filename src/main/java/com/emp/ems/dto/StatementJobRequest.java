@@ -0,0 +1,11 @@
+package com.emp.ems.dto;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+public class StatementJobRequest {
+    public Long accountId;
+    public LocalDate from;   // optional, inclusive
+    public LocalDate to;     // optional, inclusive
+    public YearMonth month;  // optional, "yyyy-MM"; instead of from/to
+}
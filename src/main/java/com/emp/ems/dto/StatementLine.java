@@ -0,0 +1,35 @@
+package com.emp.ems.dto;
+
+import java.time.LocalDateTime;
+
+import com.emp.ems.entities.TransactionType;
+
+/**
+ * One row of a PDF statement, read by a JPQL constructor expression so that
+ * rendering never loads Transaction entities (or their account graphs) and
+ * nothing accumulates in the persistence context between chunks.
+ */
+public record StatementLine(Long id, LocalDateTime createdAt, TransactionType type, String description,
+                            long amountMinor, String status, String fromAccountNumber, String toAccountNumber) {
+
+    /** Row shape of the native month-end batch query; accountId is the statement it belongs to. */
+    public interface Row {
+        Long getAccountId();
+        Long getId();
+        LocalDateTime getCreatedAt();
+        String getType();
+        String getDescription();
+        Long getAmountMinor();
+        String getStatus();
+        String getFromAccountNumber();
+        String getToAccountNumber();
+    }
+
+    public static StatementLine of(Row r) {
+        return new StatementLine(r.getId(), r.getCreatedAt(),
+                r.getType() != null ? TransactionType.valueOf(r.getType()) : null,
+                r.getDescription(),
+                r.getAmountMinor() != null ? r.getAmountMinor() : 0L,
+                r.getStatus(), r.getFromAccountNumber(), r.getToAccountNumber());
+    }
+}
@@ -0,0 +1,56 @@
+package com.emp.ems.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+/**
+ * Inclusive date range of a statement; either bound may be open. {@link #ALL} is the
+ * full-history statement. The upper bound is expressed as the starting keyset cursor
+ * of the (createdAt DESC, id DESC) statement query.
+ */
+public record StatementPeriod(LocalDate from, LocalDate to) {
+
+    public static final StatementPeriod ALL = new StatementPeriod(null, null);
+
+    // Lowest DATETIME MySQL accepts; stands in for an open lower bound
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1000, 1, 1, 0, 0);
+
+    // month wins over from/to; throws IllegalArgumentException for combined or inverted ranges
+    public static StatementPeriod of(LocalDate from, LocalDate to, YearMonth month) {
+        if (month != null) {
+            if (from != null || to != null) {
+                throw new IllegalArgumentException("Use either month or from/to, not both.");
+            }
+            return new StatementPeriod(month.atDay(1), month.atEndOfMonth());
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'.");
+        }
+        return new StatementPeriod(from, to);
+    }
+
+    public boolean isAll() {
+        return from == null && to == null;
+    }
+
+    // A period that ended before today can no longer receive transactions
+    public boolean isClosedOn(LocalDate today) {
+        return to != null && to.isBefore(today);
+    }
+
+    public LocalDateTime start() {
+        return from != null ? from.atStartOfDay() : EARLIEST;
+    }
+
+    // Rows strictly before midnight after 'to' (id < MIN_VALUE never matches the tie-break)
+    public TransactionCursor end() {
+        return to != null ? new TransactionCursor(to.plusDays(1).atStartOfDay(), Long.MIN_VALUE)
+                          : TransactionCursor.START;
+    }
+
+    @Override
+    public String toString() {
+        return (from != null ? from.toString() : "start") + "_" + (to != null ? to.toString() : "now");
+    }
+}
@@ -0,0 +1,37 @@
+package com.emp.ems.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Keyset position in a transaction feed ordered by (createdAt DESC, id DESC).
+ * Clients only ever see the opaque URL-safe token from {@link #encode()}.
+ */
+public record TransactionCursor(LocalDateTime createdAt, long id) {
+
+    // Sorts after every real row, so "before START" is the first page
+    public static final TransactionCursor START = new TransactionCursor(LocalDateTime.of(9999, 12, 31, 23, 59), Long.MAX_VALUE);
+
+    public String encode() {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Blank token = first page; throws IllegalArgumentException for anything we did not issue
+    public static TransactionCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return START;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            if (sep < 0) throw new IllegalArgumentException("Invalid cursor");
+            return new TransactionCursor(LocalDateTime.parse(raw.substring(0, sep)),
+                                         Long.parseLong(raw.substring(sep + 1)));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
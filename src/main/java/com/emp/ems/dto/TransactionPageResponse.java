@@ -1,18 +1,22 @@
 package com.emp.ems.dto;
 
 import java.util.List;
-import com.emp.ems.entities.Transaction;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+
 
 public class TransactionPageResponse {
-    private List<Transaction> content;
-    private int totalPages;
-    private long totalElements;
-    private int currentPage;
+    private List<TransactionView> content;
+    private int totalPages;      // -1 when the count was skipped
+    private long totalElements;  // -1 when the count was skipped
+    private int currentPage;     // -1 in cursor mode
     private int pageSize;
     private boolean hasNext;
     private boolean hasPrevious;
+    private String nextCursor;   // opaque keyset token, null on the last page
 
-    public TransactionPageResponse(List<Transaction> content, int totalPages, 
+    public TransactionPageResponse(List<TransactionView> content, int totalPages, 
                                    long totalElements, int currentPage, 
                                    int pageSize, boolean hasNext, boolean hasPrevious) {
         this.content = content;
@@ -24,13 +28,48 @@ public class TransactionPageResponse {
         this.hasPrevious = hasPrevious;
     }
 
+    public static TransactionPageResponse of(Page<TransactionView> page) {
+        TransactionPageResponse r = new TransactionPageResponse(page.getContent(), page.getTotalPages(),
+                page.getTotalElements(), page.getNumber(), page.getSize(), page.hasNext(), page.hasPrevious());
+        r.nextCursor = nextCursor(page.getContent(), page.hasNext());
+        return r;
+    }
+
+    // Offset page without the COUNT(*) query
+    public static TransactionPageResponse of(Slice<TransactionView> slice) {
+        TransactionPageResponse r = new TransactionPageResponse(slice.getContent(), -1, -1,
+                slice.getNumber(), slice.getSize(), slice.hasNext(), slice.hasPrevious());
+        r.nextCursor = nextCursor(slice.getContent(), slice.hasNext());
+        return r;
+    }
+
+    /**
+     * Cursor page. {@code rows} is the result of a size + 1 query; the extra row
+     * only tells us whether there is a next page. {@code total} may be null.
+     */
+    public static TransactionPageResponse seek(List<TransactionView> rows, int size, boolean first, Long total) {
+        boolean hasNext = rows.size() > size;
+        List<TransactionView> content = hasNext ? rows.subList(0, size) : rows;
+        int totalPages = total == null ? -1 : (int) ((total + size - 1) / size);
+        TransactionPageResponse r = new TransactionPageResponse(content, totalPages,
+                total == null ? -1 : total, -1, size, hasNext, !first);
+        r.nextCursor = nextCursor(content, hasNext);
+        return r;
+    }
+
+    private static String nextCursor(List<TransactionView> content, boolean hasNext) {
+        if (!hasNext || content.isEmpty()) return null;
+        TransactionView last = content.get(content.size() - 1);
+        return new TransactionCursor(last.createdAt(), last.id()).encode();
+    }
+
     // Getters
-    public List<Transaction> getContent() { return content; }
+    public List<TransactionView> getContent() { return content; }
     public int getTotalPages() { return totalPages; }
     public long getTotalElements() { return totalElements; }
     public int getCurrentPage() { return currentPage; }
     public int getPageSize() { return pageSize; }
     public boolean isHasNext() { return hasNext; }
     public boolean isHasPrevious() { return hasPrevious; }
+    public String getNextCursor() { return nextCursor; }
 }
-
@@ -0,0 +1,47 @@
+package com.emp.ems.dto;
+
+import java.time.LocalDateTime;
+
+import com.emp.ems.entities.Money;
+import com.emp.ems.entities.TransactionType;
+
+/**
+ * List-endpoint view of a transaction: only what the tables show, read in one
+ * query (JPQL constructor expression) instead of loading Transaction entities
+ * with their eager Account and Customer graphs. Keeps the
+ * {@code fromAccount.accountNumber} shape the frontend reads.
+ */
+public record TransactionView(Long id, TransactionType type, double amount, String status,
+                              LocalDateTime createdAt, AccountRef fromAccount, AccountRef toAccount) {
+
+    public record AccountRef(Long id, String accountNumber) { }
+
+    // Used by the JPQL "SELECT new ..." queries in TransactionRepository
+    public TransactionView(Long id, TransactionType type, long amountMinor, String status, LocalDateTime createdAt,
+                           Long fromAccountId, String fromAccountNumber, Long toAccountId, String toAccountNumber) {
+        this(id, type, Money.toRupees(amountMinor), status, createdAt,
+             fromAccountId != null ? new AccountRef(fromAccountId, fromAccountNumber) : null,
+             toAccountId != null ? new AccountRef(toAccountId, toAccountNumber) : null);
+    }
+
+    /** Row shape of the native (UNION ALL) customer feed queries. */
+    public interface Row {
+        Long getId();
+        String getType();
+        Long getAmountMinor();
+        String getStatus();
+        LocalDateTime getCreatedAt();
+        Long getFromAccountId();
+        String getFromAccountNumber();
+        Long getToAccountId();
+        String getToAccountNumber();
+    }
+
+    public static TransactionView of(Row r) {
+        return new TransactionView(r.getId(),
+                r.getType() != null ? TransactionType.valueOf(r.getType()) : null,
+                r.getAmountMinor() != null ? r.getAmountMinor() : 0L,
+                r.getStatus(), r.getCreatedAt(),
+                r.getFromAccountId(), r.getFromAccountNumber(), r.getToAccountId(), r.getToAccountNumber());
+    }
+}
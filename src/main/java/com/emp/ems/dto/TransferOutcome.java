@@ -0,0 +1,28 @@
+package com.emp.ems.dto;
+
+// Result of a single transfer; balances are in paise and only set when the accounts were found
+public class TransferOutcome {
+    private final TransferStatus status;
+    private final long fromBalance;
+    private final long toBalance;
+
+    private TransferOutcome(TransferStatus status, long fromBalance, long toBalance) {
+        this.status = status;
+        this.fromBalance = fromBalance;
+        this.toBalance = toBalance;
+    }
+
+    public static TransferOutcome of(TransferStatus status) {
+        return new TransferOutcome(status, 0, 0);
+    }
+
+    public static TransferOutcome of(TransferStatus status, long fromBalance, long toBalance) {
+        return new TransferOutcome(status, fromBalance, toBalance);
+    }
+
+    // Getters
+    public TransferStatus getStatus() { return status; }
+    public long getFromBalance() { return fromBalance; }
+    public long getToBalance() { return toBalance; }
+    public boolean isSuccess() { return status == TransferStatus.SUCCESS; }
+}
@@ -0,0 +1,9 @@
+package com.emp.ems.dto;
+
+public enum TransferStatus {
+    SUCCESS,
+    UNKNOWN_SOURCE,
+    UNKNOWN_TARGET,
+    INSUFFICIENT_FUNDS,
+    INVALID_AMOUNT
+}
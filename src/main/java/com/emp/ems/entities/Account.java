@@ -1,6 +1,7 @@
 package com.emp.ems.entities;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.persistence.*;
 
 import java.util.List;
@@ -10,7 +11,9 @@ import java.util.List;
 public class Account extends BaseEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "accounts_ids")
+    @TableGenerator(name = "accounts_ids", table = "id_sequences", pkColumnName = "seq_name",
+            valueColumnName = "next_val", pkColumnValue = "accounts", allocationSize = 50)
     private Long id;
 
     @Column(unique = true)
@@ -21,10 +24,16 @@ public class Account extends BaseEntity {
     @Enumerated(EnumType.STRING)
     private AccountType type;   // SAVINGS / CURRENT / FIXED_DEPOSIT
 
-    private double balance;
+    @Column(name = "balance_minor", nullable = false)
+    private long balanceMinor; // paise, see Money
 
     private double interestRate; // e.g. 0.04 = 4% per year
 
+    // Interest accrued since the last month-end posting, not part of the balance yet;
+    // filled in by AccountService for reads, null otherwise
+    @Transient
+    private Long accruedInterestMinor;
+
     @ManyToOne
     @JoinColumn(name = "customer_id")
     private Customer customer;
@@ -49,8 +58,21 @@ public class Account extends BaseEntity {
     public AccountType getType() { return type; }
     public void setType(AccountType type) { this.type = type; }
 
-    public double getBalance() { return balance; }
-    public void setBalance(double balance) { this.balance = balance; }
+    @JsonIgnore
+    public long getBalanceMinor() { return balanceMinor; }
+    public void setBalanceMinor(long balanceMinor) { this.balanceMinor = balanceMinor; }
+
+    // Rupee view for the JSON API
+    public double getBalance() { return Money.toRupees(balanceMinor); }
+
+    @JsonIgnore
+    public Long getAccruedInterestMinor() { return accruedInterestMinor; }
+    public void setAccruedInterestMinor(Long accruedInterestMinor) { this.accruedInterestMinor = accruedInterestMinor; }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public Double getAccruedInterest() {
+        return accruedInterestMinor == null ? null : Money.toRupees(accruedInterestMinor);
+    }
 
     public double getInterestRate() { return interestRate; }
     public void setInterestRate(double interestRate) { this.interestRate = interestRate; }
@@ -60,10 +82,10 @@ public class Account extends BaseEntity {
 
     public Account() { }
 
-    public Account(String sortCode, AccountType type, double balance, Customer customer) {
+    public Account(String sortCode, AccountType type, long balanceMinor, Customer customer) {
         this.sortCode = sortCode;
         this.type = type;
-        this.balance = balance;
+        this.balanceMinor = balanceMinor;
         this.customer = customer;
     }
 }
@@ -10,7 +10,9 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 public class Customer extends BaseEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "customers_ids")
+    @TableGenerator(name = "customers_ids", table = "id_sequences", pkColumnName = "seq_name",
+            valueColumnName = "next_val", pkColumnValue = "customers", allocationSize = 50)
     private Long id;
 
     private String fullName;
@@ -28,11 +30,7 @@ public class Customer extends BaseEntity {
     @JsonIgnore
     private List<Account> accounts;
 
-    // Security / OTP / locking
-    private String otpCode;
-
-    private LocalDateTime otpExpiry;
-
+    // Security / locking (pending OTPs live in OtpService, not here)
     private int failedLoginAttempts;
 
     private boolean locked;
@@ -62,12 +60,6 @@ public class Customer extends BaseEntity {
     public List<Account> getAccounts() { return accounts; }
     public void setAccounts(List<Account> accounts) { this.accounts = accounts; }
 
-    public String getOtpCode() { return otpCode; }
-    public void setOtpCode(String otpCode) { this.otpCode = otpCode; }
-
-    public LocalDateTime getOtpExpiry() { return otpExpiry; }
-    public void setOtpExpiry(LocalDateTime otpExpiry) { this.otpExpiry = otpExpiry; }
-
     public int getFailedLoginAttempts() { return failedLoginAttempts; }
     public void setFailedLoginAttempts(int failedLoginAttempts) { this.failedLoginAttempts = failedLoginAttempts; }
 
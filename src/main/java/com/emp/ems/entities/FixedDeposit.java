@@ -1,17 +1,22 @@
 package com.emp.ems.entities;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "fixed_deposits")
+@Table(name = "fixed_deposits", indexes = @Index(name = "idx_fd_closed_maturity", columnList = "closed, maturity_date"))
 public class FixedDeposit extends BaseEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "fixed_deposits_ids")
+    @TableGenerator(name = "fixed_deposits_ids", table = "id_sequences", pkColumnName = "seq_name",
+            valueColumnName = "next_val", pkColumnValue = "fixed_deposits", allocationSize = 50)
     private Long id;
 
-    private double principal;
+    @Column(name = "principal_minor", nullable = false)
+    private long principalMinor; // paise, see Money
 
     private double interestRate;
 
@@ -21,6 +26,11 @@ public class FixedDeposit extends BaseEntity {
 
     private boolean closed;
 
+    @Column(name = "interest_minor", nullable = false)
+    private long interestMinor; // paid out on closing
+
+    private LocalDateTime closedAt;
+
     @ManyToOne
     @JoinColumn(name = "linked_account_id")
     private Account linkedAccount; // where to credit on maturity
@@ -28,8 +38,12 @@ public class FixedDeposit extends BaseEntity {
     // Getters and Setters
     public Long getId() { return id; }
 
-    public double getPrincipal() { return principal; }
-    public void setPrincipal(double principal) { this.principal = principal; }
+    @JsonIgnore
+    public long getPrincipalMinor() { return principalMinor; }
+    public void setPrincipalMinor(long principalMinor) { this.principalMinor = principalMinor; }
+
+    // Rupee view for the JSON API
+    public double getPrincipal() { return Money.toRupees(principalMinor); }
 
     public double getInterestRate() { return interestRate; }
     public void setInterestRate(double interestRate) { this.interestRate = interestRate; }
@@ -43,6 +57,15 @@ public class FixedDeposit extends BaseEntity {
     public boolean isClosed() { return closed; }
     public void setClosed(boolean closed) { this.closed = closed; }
 
+    @JsonIgnore
+    public long getInterestMinor() { return interestMinor; }
+    public void setInterestMinor(long interestMinor) { this.interestMinor = interestMinor; }
+
+    public double getInterest() { return Money.toRupees(interestMinor); }
+
+    public LocalDateTime getClosedAt() { return closedAt; }
+    public void setClosedAt(LocalDateTime closedAt) { this.closedAt = closedAt; }
+
     public Account getLinkedAccount() { return linkedAccount; }
     public void setLinkedAccount(Account linkedAccount) { this.linkedAccount = linkedAccount; }
 }
@@ -0,0 +1,40 @@
+package com.emp.ems.entities;
+
+import jakarta.persistence.*;
+
+@Entity
+@Table(name = "idempotency_keys")
+public class IdempotencyRecord extends BaseEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "idempotency_keys_ids")
+    @TableGenerator(name = "idempotency_keys_ids", table = "id_sequences", pkColumnName = "seq_name",
+            valueColumnName = "next_val", pkColumnValue = "idempotency_keys", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "idempotency_key", unique = true, nullable = false, length = 200)
+    private String idempotencyKey; // "<endpoint>:<Idempotency-Key header>"
+
+    @Column(length = 64)
+    private String requestHash; // SHA-256 of the request body, hex
+
+    private Integer statusCode; // set in the transaction that ran the request
+
+    @Column(columnDefinition = "TEXT")
+    private String responseBody; // JSON
+
+    // Getters and Setters
+    public Long getId() { return id; }
+
+    public String getIdempotencyKey() { return idempotencyKey; }
+    public void setIdempotencyKey(String idempotencyKey) { this.idempotencyKey = idempotencyKey; }
+
+    public String getRequestHash() { return requestHash; }
+    public void setRequestHash(String requestHash) { this.requestHash = requestHash; }
+
+    public Integer getStatusCode() { return statusCode; }
+    public void setStatusCode(Integer statusCode) { this.statusCode = statusCode; }
+
+    public String getResponseBody() { return responseBody; }
+    public void setResponseBody(String responseBody) { this.responseBody = responseBody; }
+}
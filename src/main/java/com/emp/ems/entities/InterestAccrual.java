@@ -0,0 +1,69 @@
+package com.emp.ems.entities;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+import jakarta.persistence.*;
+
+/**
+ * Interest earned by one savings account in one calendar month and not yet (fully) on its
+ * balance. The daily run adds the day's interest to accruedMicros in place and keeps
+ * accruedMinor at that total rounded to paise, so the month is rounded once, not every
+ * day. The month-end posting credits
+ * accruedMinor - postedMinor to the account as a single INTEREST transaction and moves
+ * postedMinor up to match, so a late accrual into a posted month is posted next time.
+ * Written set-based by InterestAccrualRepository.
+ */
+@Entity
+@IdClass(InterestAccrual.Key.class)
+@Table(name = "interest_accruals", indexes = @Index(name = "idx_accrual_period", columnList = "period_start, account_id"))
+public class InterestAccrual extends BaseEntity {
+
+    @Id
+    @Column(name = "account_id")
+    private Long accountId;
+
+    @Id
+    @Column(name = "period_start")
+    private LocalDate periodStart; // first day of the month
+
+    @Column(name = "accrued_micros")
+    private Long accruedMicros; // micro-paise, see Money; null on rows accrued before it was kept
+
+    @Column(name = "accrued_minor", nullable = false)
+    private long accruedMinor; // accruedMicros rounded to paise
+
+    @Column(name = "posted_minor", nullable = false)
+    private long postedMinor;
+
+    private int days;
+
+    private LocalDate lastAccrualDate;
+
+    private LocalDateTime postedAt;
+
+    public static class Key implements Serializable {
+        private Long accountId;
+        private LocalDate periodStart;
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key k && Objects.equals(accountId, k.accountId) && Objects.equals(periodStart, k.periodStart);
+        }
+
+        @Override
+        public int hashCode() { return Objects.hash(accountId, periodStart); }
+    }
+
+    // Getters
+    public Long getAccountId() { return accountId; }
+    public LocalDate getPeriodStart() { return periodStart; }
+    public Long getAccruedMicros() { return accruedMicros; }
+    public long getAccruedMinor() { return accruedMinor; }
+    public long getPostedMinor() { return postedMinor; }
+    public int getDays() { return days; }
+    public LocalDate getLastAccrualDate() { return lastAccrualDate; }
+    public LocalDateTime getPostedAt() { return postedAt; }
+}
@@ -0,0 +1,63 @@
+package com.emp.ems.entities;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+
+/**
+ * The daily interest accrual for one date; at most one per date, which is what stops a
+ * rerun from crediting a day twice. Its savings accounts are split into id ranges
+ * (InterestRunRange) that are credited in parallel, each in one transaction; every
+ * range ending at or below checkpointAccountId is done.
+ */
+@Entity
+@Table(name = "interest_runs")
+public class InterestRun extends BaseEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "interest_runs_ids")
+    @TableGenerator(name = "interest_runs_ids", table = "id_sequences", pkColumnName = "seq_name",
+            valueColumnName = "next_val", pkColumnValue = "interest_runs", allocationSize = 50)
+    private Long id;
+
+    @Column(unique = true, nullable = false)
+    private LocalDate runDate;
+
+    private String status; // RUNNING / COMPLETED / FAILED
+
+    private long checkpointAccountId;
+
+    private int totalRanges;
+
+    private long accountsCredited;
+
+    @Column(name = "interest_minor", nullable = false)
+    private long interestMinor; // paise, see Money
+
+    private LocalDateTime finishedAt;
+
+    // Getters and Setters
+    public Long getId() { return id; }
+
+    public LocalDate getRunDate() { return runDate; }
+    public void setRunDate(LocalDate runDate) { this.runDate = runDate; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public long getCheckpointAccountId() { return checkpointAccountId; }
+    public void setCheckpointAccountId(long checkpointAccountId) { this.checkpointAccountId = checkpointAccountId; }
+
+    public int getTotalRanges() { return totalRanges; }
+    public void setTotalRanges(int totalRanges) { this.totalRanges = totalRanges; }
+
+    public long getAccountsCredited() { return accountsCredited; }
+    public void setAccountsCredited(long accountsCredited) { this.accountsCredited = accountsCredited; }
+
+    public long getInterestMinor() { return interestMinor; }
+    public void setInterestMinor(long interestMinor) { this.interestMinor = interestMinor; }
+
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(LocalDateTime finishedAt) { this.finishedAt = finishedAt; }
+}
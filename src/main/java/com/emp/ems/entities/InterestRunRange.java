@@ -0,0 +1,56 @@
+package com.emp.ems.entities;
+
+import jakarta.persistence.*;
+
+/**
+ * One id range of an interest run: savings accounts with rangeStart < id <= rangeEnd.
+ * Ranges are planned once when the run starts, so a resumed run works through exactly the
+ * same boundaries; a range turns DONE in the same transaction that credits it.
+ */
+@Entity
+@Table(name = "interest_run_ranges", uniqueConstraints =
+        @UniqueConstraint(name = "uk_interest_range", columnNames = {"run_id", "range_end"}))
+public class InterestRunRange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "interest_run_ranges_ids")
+    @TableGenerator(name = "interest_run_ranges_ids", table = "id_sequences", pkColumnName = "seq_name",
+            valueColumnName = "next_val", pkColumnValue = "interest_run_ranges", allocationSize = 500)
+    private Long id;
+
+    @Column(name = "run_id", nullable = false)
+    private Long runId;
+
+    private long rangeStart; // exclusive
+
+    @Column(name = "range_end")
+    private long rangeEnd;   // inclusive
+
+    private String status;   // PENDING / DONE
+
+    private int accounts;
+
+    @Column(name = "interest_minor", nullable = false)
+    private long interestMinor; // paise, see Money
+
+    private long durationMs;
+
+    public InterestRunRange() { }
+
+    public InterestRunRange(Long runId, long rangeStart, long rangeEnd) {
+        this.runId = runId;
+        this.rangeStart = rangeStart;
+        this.rangeEnd = rangeEnd;
+        this.status = "PENDING";
+    }
+
+    // Getters
+    public Long getId() { return id; }
+    public Long getRunId() { return runId; }
+    public long getRangeStart() { return rangeStart; }
+    public long getRangeEnd() { return rangeEnd; }
+    public String getStatus() { return status; }
+    public int getAccounts() { return accounts; }
+    public long getInterestMinor() { return interestMinor; }
+    public long getDurationMs() { return durationMs; }
+}
@@ -0,0 +1,85 @@
+package com.emp.ems.entities;
+
+/**
+ * Money helpers over {@code long} paise (1 rupee = 100 paise).
+ *
+ * Amounts are kept as primitive longs so balance arithmetic never boxes or
+ * allocates; this class only converts at the edges (JSON, PDFs) and holds
+ * the rounding rules. Rupee values coming in from the API are rounded half-up
+ * to the nearest paisa; interest is rounded half-even (banker's rounding) so
+ * it does not drift upwards across millions of accounts. Daily interest is
+ * kept in micro-paise and only rounded to paise when a month is posted, so
+ * small balances still earn and no fraction is dropped each day.
+ */
+public final class Money {
+
+    public static final long PAISE_PER_RUPEE = 100L;
+
+    public static final long MICROS_PER_PAISA = 1_000_000L;
+
+    public static final int DAYS_PER_YEAR = 365;
+
+    private Money() { }
+
+    public static long ofRupees(double rupees) {
+        return Math.round(rupees * PAISE_PER_RUPEE);
+    }
+
+    public static double toRupees(long paise) {
+        return paise / (double) PAISE_PER_RUPEE;
+    }
+
+    public static long add(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    public static long subtract(long a, long b) {
+        return Math.subtractExact(a, b);
+    }
+
+    /**
+     * One day of simple interest on {@code balance} at {@code annualRate} (0.04 = 4%),
+     * in micro-paise. Never negative.
+     */
+    public static long dailyInterestMicros(long balance, double annualRate) {
+        if (balance <= 0 || annualRate <= 0) return 0;
+        return (long) Math.rint(balance * annualRate * MICROS_PER_PAISA / DAYS_PER_YEAR);
+    }
+
+    /**
+     * Micro-paise rounded half-even to the nearest paisa.
+     */
+    public static long microsToPaise(long micros) {
+        return (long) Math.rint(micros / (double) MICROS_PER_PAISA);
+    }
+
+    /**
+     * Simple interest on {@code principal} at {@code annualRate} for {@code days} days,
+     * rounded half-even to the nearest paisa, as paid on a fixed deposit. Never negative.
+     */
+    public static long simpleInterest(long principal, double annualRate, long days) {
+        if (principal <= 0 || annualRate <= 0 || days <= 0) return 0;
+        return (long) Math.rint(principal * annualRate * days / DAYS_PER_YEAR);
+    }
+
+    /**
+     * Formats paise as rupees with two decimals ("1234.50"), without going
+     * through {@code String.format}.
+     */
+    public static String format(long paise) {
+        return appendTo(new StringBuilder(24), paise).toString();
+    }
+
+    public static StringBuilder appendTo(StringBuilder sb, long paise) {
+        long abs = paise;
+        if (paise < 0) {
+            sb.append('-');
+            abs = -paise; // Long.MIN_VALUE is not a reachable balance
+        }
+        long rupees = abs / PAISE_PER_RUPEE;
+        int fraction = (int) (abs % PAISE_PER_RUPEE);
+        sb.append(rupees).append('.');
+        if (fraction < 10) sb.append('0');
+        return sb.append(fraction);
+    }
+}
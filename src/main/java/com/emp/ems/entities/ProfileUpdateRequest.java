@@ -8,7 +8,9 @@ import java.time.LocalDateTime;
 public class ProfileUpdateRequest extends BaseEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "profile_update_requests_ids")
+    @TableGenerator(name = "profile_update_requests_ids", table = "id_sequences", pkColumnName = "seq_name",
+            valueColumnName = "next_val", pkColumnValue = "profile_update_requests", allocationSize = 50)
     private Long id;
 
     @ManyToOne
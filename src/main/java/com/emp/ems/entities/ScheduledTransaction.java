@@ -1,5 +1,6 @@
 package com.emp.ems.entities;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
@@ -8,12 +9,15 @@ import java.time.LocalDateTime;
 public class ScheduledTransaction extends BaseEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "scheduled_transactions_ids")
+    @TableGenerator(name = "scheduled_transactions_ids", table = "id_sequences", pkColumnName = "seq_name",
+            valueColumnName = "next_val", pkColumnValue = "scheduled_transactions", allocationSize = 50)
     private Long id;
 
     private String fromAccountNumber;
     private String toAccountNumber;
-    private double amount;
+    @Column(name = "amount_minor", nullable = false)
+    private long amountMinor; // paise, see Money
 
     private LocalDateTime nextExecution;
 
@@ -22,6 +26,19 @@ public class ScheduledTransaction extends BaseEntity {
 
     private boolean active = true;
 
+    // Retry state: consecutive failed attempts of the current run, pushed back exponentially;
+    // at the configured limit the order is suspended (and deactivated) until someone looks at it
+    private int failureCount;
+    private String lastFailureReason;
+    private LocalDateTime lastFailureAt;
+    private LocalDateTime missedExecution; // the due date being retried, so backoff does not shift the schedule
+    private boolean suspended;
+
+    // Claim held by the node executing this order; free when null or expired (see ScheduledTransactionServiceImpl)
+    @Column(length = 100)
+    private String leaseOwner;
+    private LocalDateTime leaseExpiresAt;
+
     // Getters and Setters
     public Long getId() { return id; }
 
@@ -31,8 +48,12 @@ public class ScheduledTransaction extends BaseEntity {
     public String getToAccountNumber() { return toAccountNumber; }
     public void setToAccountNumber(String toAccountNumber) { this.toAccountNumber = toAccountNumber; }
 
-    public double getAmount() { return amount; }
-    public void setAmount(double amount) { this.amount = amount; }
+    @JsonIgnore
+    public long getAmountMinor() { return amountMinor; }
+    public void setAmountMinor(long amountMinor) { this.amountMinor = amountMinor; }
+
+    // Rupee view for the JSON API
+    public double getAmount() { return Money.toRupees(amountMinor); }
 
     public LocalDateTime getNextExecution() { return nextExecution; }
     public void setNextExecution(LocalDateTime nextExecution) { this.nextExecution = nextExecution; }
@@ -42,4 +63,28 @@ public class ScheduledTransaction extends BaseEntity {
 
     public boolean isActive() { return active; }
     public void setActive(boolean active) { this.active = active; }
+
+    public int getFailureCount() { return failureCount; }
+    public void setFailureCount(int failureCount) { this.failureCount = failureCount; }
+
+    public String getLastFailureReason() { return lastFailureReason; }
+    public void setLastFailureReason(String lastFailureReason) { this.lastFailureReason = lastFailureReason; }
+
+    public LocalDateTime getLastFailureAt() { return lastFailureAt; }
+    public void setLastFailureAt(LocalDateTime lastFailureAt) { this.lastFailureAt = lastFailureAt; }
+
+    @JsonIgnore
+    public LocalDateTime getMissedExecution() { return missedExecution; }
+    public void setMissedExecution(LocalDateTime missedExecution) { this.missedExecution = missedExecution; }
+
+    public boolean isSuspended() { return suspended; }
+    public void setSuspended(boolean suspended) { this.suspended = suspended; }
+
+    @JsonIgnore
+    public String getLeaseOwner() { return leaseOwner; }
+    public void setLeaseOwner(String leaseOwner) { this.leaseOwner = leaseOwner; }
+
+    @JsonIgnore
+    public LocalDateTime getLeaseExpiresAt() { return leaseExpiresAt; }
+    public void setLeaseExpiresAt(LocalDateTime leaseExpiresAt) { this.leaseExpiresAt = leaseExpiresAt; }
 }
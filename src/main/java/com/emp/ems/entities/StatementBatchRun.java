@@ -0,0 +1,72 @@
+package com.emp.ems.entities;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+
+/**
+ * Progress of the month-end statement batch for one month. Every account with
+ * id <= checkpointAccountId has its file written, so a run that died is resumed
+ * from there; files already on disk past the checkpoint are skipped.
+ */
+@Entity
+@Table(name = "statement_batch_runs")
+public class StatementBatchRun extends BaseEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "statement_batch_runs_ids")
+    @TableGenerator(name = "statement_batch_runs_ids", table = "id_sequences", pkColumnName = "seq_name",
+            valueColumnName = "next_val", pkColumnValue = "statement_batch_runs", allocationSize = 50)
+    private Long id;
+
+    @Column(unique = true, nullable = false, length = 7)
+    private String period; // yyyy-MM
+
+    private String status; // RUNNING / COMPLETED / PARTIAL (some statements failed) / FAILED
+
+    private long totalAccounts;
+
+    // rendered + skipped + failed never exceeds totalAccounts: all three count the latest attempt
+
+    private long rendered;
+
+    private long skipped; // finished by an earlier attempt (behind the checkpoint or on disk)
+
+    private long failed;
+
+    private long checkpointAccountId;
+
+    private String outputDir;
+
+    private LocalDateTime finishedAt;
+
+    // Getters and Setters
+    public Long getId() { return id; }
+
+    public String getPeriod() { return period; }
+    public void setPeriod(String period) { this.period = period; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public long getTotalAccounts() { return totalAccounts; }
+    public void setTotalAccounts(long totalAccounts) { this.totalAccounts = totalAccounts; }
+
+    public long getRendered() { return rendered; }
+    public void setRendered(long rendered) { this.rendered = rendered; }
+
+    public long getSkipped() { return skipped; }
+    public void setSkipped(long skipped) { this.skipped = skipped; }
+
+    public long getFailed() { return failed; }
+    public void setFailed(long failed) { this.failed = failed; }
+
+    public long getCheckpointAccountId() { return checkpointAccountId; }
+    public void setCheckpointAccountId(long checkpointAccountId) { this.checkpointAccountId = checkpointAccountId; }
+
+    public String getOutputDir() { return outputDir; }
+    public void setOutputDir(String outputDir) { this.outputDir = outputDir; }
+
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(LocalDateTime finishedAt) { this.finishedAt = finishedAt; }
+}
@@ -1,19 +1,29 @@
 package com.emp.ems.entities;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+        @Index(name = "idx_tx_created", columnList = "created_at, id"),
+        @Index(name = "idx_tx_from_created", columnList = "from_account_id, created_at, id"),
+        @Index(name = "idx_tx_to_created", columnList = "to_account_id, created_at, id"),
+        @Index(name = "idx_tx_from_customer", columnList = "from_customer_id, created_at, id"),
+        @Index(name = "idx_tx_to_customer", columnList = "to_customer_id, created_at, id")
+})
 public class Transaction extends BaseEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "transactions_ids")
+    @TableGenerator(name = "transactions_ids", table = "id_sequences", pkColumnName = "seq_name",
+            valueColumnName = "next_val", pkColumnValue = "transactions", allocationSize = 500)
     private Long id;
 
     @Enumerated(EnumType.STRING)
     private TransactionType type; // DEPOSIT / WITHDRAW / TRANSFER / INTEREST
 
-    private double amount;
+    @Column(name = "amount_minor", nullable = false)
+    private long amountMinor; // paise, see Money
     private String description;
 
     @ManyToOne
@@ -24,6 +34,14 @@ public class Transaction extends BaseEntity {
     @JoinColumn(name = "to_account_id")
     private Account toAccount;    // null for withdraw
 
+    // Owners of fromAccount / toAccount, copied on insert so the customer feed can be
+    // served from (customer_id, created_at, id) indexes instead of joining accounts
+    @Column(name = "from_customer_id")
+    private Long fromCustomerId;
+
+    @Column(name = "to_customer_id")
+    private Long toCustomerId;
+
     private String status; // SUCCESS / FAILED
 
     // Getters / Setters
@@ -32,8 +50,12 @@ public class Transaction extends BaseEntity {
     public TransactionType getType() { return type; }
     public void setType(TransactionType type) { this.type = type; }
 
-    public double getAmount() { return amount; }
-    public void setAmount(double amount) { this.amount = amount; }
+    @JsonIgnore
+    public long getAmountMinor() { return amountMinor; }
+    public void setAmountMinor(long amountMinor) { this.amountMinor = amountMinor; }
+
+    // Rupee view for the JSON API
+    public double getAmount() { return Money.toRupees(amountMinor); }
 
     public String getDescription() { return description; }
     public void setDescription(String description) { this.description = description; }
@@ -46,4 +68,22 @@ public class Transaction extends BaseEntity {
 
     public String getStatus() { return status; }
     public void setStatus(String status) { this.status = status; }
+
+    @JsonIgnore
+    public Long getFromCustomerId() { return fromCustomerId; }
+    public void setFromCustomerId(Long fromCustomerId) { this.fromCustomerId = fromCustomerId; }
+
+    @JsonIgnore
+    public Long getToCustomerId() { return toCustomerId; }
+    public void setToCustomerId(Long toCustomerId) { this.toCustomerId = toCustomerId; }
+
+    @PrePersist
+    void fillCustomerIds() {
+        if (fromCustomerId == null && fromAccount != null && fromAccount.getCustomer() != null) {
+            fromCustomerId = fromAccount.getCustomer().getId();
+        }
+        if (toCustomerId == null && toAccount != null && toAccount.getCustomer() != null) {
+            toCustomerId = toAccount.getCustomer().getId();
+        }
+    }
 }
@@ -0,0 +1,65 @@
+package com.emp.ems.Controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.emp.ems.Repositories.AccountRepository;
+import com.emp.ems.Repositories.CustomerRepository;
+import com.emp.ems.Repositories.TransactionRepository;
+import com.emp.ems.Service.StatementJobService;
+import com.emp.ems.Service.StatementService;
+import com.emp.ems.Service.TransactionExportService;
+
+/**
+ * Unknown accounts and customers get a 404 with the usual error body, not the 500 an
+ * exception escaping the handler turns into, and nothing is rendered or exported for them.
+ */
+class StatementControllerTest {
+
+	private final AccountRepository accountRepo = mock(AccountRepository.class);
+	private final CustomerRepository customerRepo = mock(CustomerRepository.class);
+	private final TransactionRepository transactionRepo = mock(TransactionRepository.class);
+	private final StatementService statementService = mock(StatementService.class);
+	private final TransactionExportService exportService = mock(TransactionExportService.class);
+
+	private final StatementController controller = new StatementController(accountRepo, customerRepo,
+			transactionRepo, statementService, exportService, mock(StatementJobService.class));
+
+	@Test
+	void statementOfUnknownAccountIsNotFound() {
+		assertNotFound("Account not found", controller.downloadStatement(42L, null, null, null, null));
+		verifyNoInteractions(statementService);
+	}
+
+	@Test
+	void accountExportOfUnknownAccountIsNotFound() {
+		assertNotFound("Account not found",
+				controller.exportAccountTransactions(42L, "csv", null, null, null, false, null));
+		verifyNoInteractions(exportService);
+	}
+
+	@Test
+	void customerExportOfUnknownCustomerIsNotFound() {
+		assertNotFound("Customer not found",
+				controller.exportCustomerTransactions(42L, "csv", null, null, null, false, null));
+		verifyNoInteractions(exportService);
+	}
+
+	@Test
+	void transactionsOfUnknownAccountAreNotFound() {
+		assertNotFound("Account not found", controller.getAccountTransactions(42L, 0, 10, null, true));
+		verifyNoInteractions(transactionRepo);
+	}
+
+	private static void assertNotFound(String error, ResponseEntity<?> response) {
+		assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+		assertEquals(error, ((Map<?, ?>) response.getBody()).get("error"));
+	}
+}
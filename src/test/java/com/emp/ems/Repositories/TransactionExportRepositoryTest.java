@@ -0,0 +1,188 @@
+package com.emp.ems.Repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.emp.ems.SeededAccounts;
+import com.emp.ems.dto.StatementPeriod;
+
+/**
+ * What the raw exports read: every transaction of the account or customer in the period
+ * exactly once, oldest first with ties on created_at broken by id, wherever the two sides
+ * interleave. The timing needs {@code -Dbitbank.bench=true [-Dbench.rows=500000]}; give it a
+ * real database via DB_URL etc.
+ */
+@SpringBootTest(properties = { "bitbank.standing-orders.sweep-ms=3600000", "bitbank.export.fetch-size=100" })
+class TransactionExportRepositoryTest {
+
+	private static final long BASE_ID = 8_300_000_000L;
+	private static final long CUSTOMER = 920_000_001L;
+	private static final long OTHER = 920_000_002L;
+	private static final StatementPeriod MARCH = StatementPeriod.of(LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 31), null);
+	private static final LocalDateTime T = LocalDateTime.of(2024, 3, 1, 0, 0);
+
+	// the customer's two accounts and one of the other customer's
+	private static final int A0 = 0;
+	private static final int A1 = 1;
+	private static final int B0 = 2;
+
+	private record Row(long id, LocalDateTime at, int from, int to) { }
+
+	@Autowired
+	private TransactionExportRepository repo;
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	private SeededAccounts accounts;
+	// seeded but not yet inserted, and inserted
+	private final List<Row> rows = new ArrayList<>();
+	private final List<Row> written = new ArrayList<>();
+
+	@AfterEach
+	void cleanUp() {
+		if (accounts != null) accounts.cleanUp();
+	}
+
+	@Test
+	void exportsEachRowOnceOldestFirst() {
+		seedAccounts();
+		// ids deliberately not in time order, so only (created_at, id) gives the expected order
+		tx(A0, B0, 600);
+		tx(B0, A0, 60);
+		tx(A0, A1, 60); // between the customer's own accounts
+		tx(A0, A0, 120); // to itself
+		tx(B0, A0, 0); // the first instant of the period
+		tx(-1, A0, 120); // deposit
+		tx(A0, -1, 120); // withdrawal
+		tx(A1, A0, 30);
+		tx(B0, A1, 30);
+		tx(A1, B0, 30);
+		tx(B0, B0, 45); // the other customer's only
+		tx(A0, B0, -1); // before the period
+		tx(B0, A0, 31 * 24 * 3600); // the first instant after it
+		for (int i = 0; i < 40; i++) {
+			tx(i % 3 == 0 ? A0 : B0, i % 3 == 0 ? B0 : A0, 1000 + i / 2);
+		}
+		insert();
+
+		assertEquals(expected(A0, -1), exportAccount(A0));
+		assertEquals(expected(A1, -1), exportAccount(A1));
+		assertEquals(expected(A0, A1), exportCustomer(CUSTOMER));
+		assertEquals(expected(B0, -1), exportCustomer(OTHER));
+	}
+
+	@Test
+	void exportsAccountNumbersOfBothSides() {
+		seedAccounts();
+		tx(A0, B0, 1);
+		tx(-1, A0, 2);
+		insert();
+
+		List<String[]> numbers = new ArrayList<>();
+		repo.streamByAccount(accounts.id(A0), MARCH, rs -> numbers.add(new String[] { rs.getString(6), rs.getString(7) }));
+		assertEquals(2, numbers.size());
+		assertEquals(List.of(accounts.number(A0), accounts.number(B0)), Arrays.asList(numbers.get(0)));
+		assertEquals(Arrays.asList(null, accounts.number(A0)), Arrays.asList(numbers.get(1)));
+	}
+
+	@Test
+	@EnabledIfSystemProperty(named = "bitbank.bench", matches = "true")
+	void exportThroughput() {
+		int count = Integer.getInteger("bench.rows", 500_000);
+		seedAccounts();
+		// the two sides interleave in time
+		for (int i = 0; i < count; i++) {
+			tx(i % 2 == 0 ? A0 : B0, i % 2 == 0 ? B0 : A0, i / 20);
+			if (rows.size() == 10_000) insert();
+		}
+		insert();
+
+		// on H2 the database runs in this thread, so this counts its sorting and buffering too
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		for (int round = 0; round < 5; round++) {
+			long[] n = new long[1];
+			long allocated = threads.getCurrentThreadAllocatedBytes();
+			long start = System.nanoTime();
+			repo.streamByAccount(accounts.id(A0), MARCH, rs -> {
+				rs.getLong(1);
+				rs.getTimestamp(2);
+				rs.getString(3);
+				rs.getString(4);
+				rs.getLong(5);
+				rs.getString(6);
+				rs.getString(7);
+				rs.getString(8);
+				n[0]++;
+			});
+			double seconds = (System.nanoTime() - start) / 1e9;
+			allocated = threads.getCurrentThreadAllocatedBytes() - allocated;
+			assertEquals(count, n[0]);
+			System.out.printf("export, %d rows: %.2fs (%.0f rows/s), %d bytes allocated per row%n",
+					count, seconds, count / seconds, allocated / count);
+		}
+	}
+
+	private void seedAccounts() {
+		accounts = new SeededAccounts(jdbc, BASE_ID, 3).insert("SAVINGS", i -> 0L, i -> 0.0);
+	}
+
+	// A row from account index `from` to `to` (-1: none) at T + seconds
+	private void tx(int from, int to, int seconds) {
+		rows.add(new Row(BASE_ID + rows.size() + written.size(), T.plusSeconds(seconds), from, to));
+	}
+
+	private void insert() {
+		List<Object[]> args = new ArrayList<>(rows.size());
+		for (Row r : rows) {
+			Timestamp at = Timestamp.valueOf(r.at());
+			args.add(new Object[] { r.id(), "TRANSFER", 100L, "seed", "SUCCESS", customerOf(r.from()), customerOf(r.to()),
+					r.from() < 0 ? null : accounts.id(r.from()), r.to() < 0 ? null : accounts.id(r.to()), at, at });
+		}
+		jdbc.batchUpdate("INSERT INTO transactions (id, type, amount_minor, description, status, " +
+				"from_customer_id, to_customer_id, from_account_id, to_account_id, created_at, updated_at) " +
+				"VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", args);
+		written.addAll(rows);
+		rows.clear();
+	}
+
+	// Ids of the period's rows touching either account index, oldest first
+	private List<Long> expected(int a, int b) {
+		return written.stream()
+				.filter(r -> !r.at().isBefore(MARCH.start()) && r.at().isBefore(MARCH.end().createdAt()))
+				.filter(r -> r.from() == a || r.to() == a || (b >= 0 && (r.from() == b || r.to() == b)))
+				.sorted(Comparator.comparing(Row::at).thenComparingLong(Row::id))
+				.map(Row::id).toList();
+	}
+
+	private List<Long> exportAccount(int account) {
+		List<Long> ids = new ArrayList<>();
+		repo.streamByAccount(accounts.id(account), MARCH, rs -> ids.add(rs.getLong(1)));
+		return ids;
+	}
+
+	private List<Long> exportCustomer(long customerId) {
+		List<Long> ids = new ArrayList<>();
+		repo.streamByCustomer(customerId, MARCH, rs -> ids.add(rs.getLong(1)));
+		return ids;
+	}
+
+	private static Long customerOf(int account) {
+		if (account < 0) return null;
+		return account == B0 ? OTHER : CUSTOMER;
+	}
+}
@@ -0,0 +1,141 @@
+package com.emp.ems.Repositories;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.emp.ems.SeededAccounts;
+
+/**
+ * Checks on a real MySQL that both branches of the customer and account feeds are served
+ * from the (customer_id|account_id, created_at, id) indexes without a scan or filesort.
+ * The plans are MySQL's, so this needs DB_URL etc. pointing at one.
+ */
+@SpringBootTest
+@EnabledIfEnvironmentVariable(named = "DB_URL", matches = "jdbc:mysql:.*")
+class TransactionFeedExplainTest {
+
+	private static final long BASE_ID = 8_000_000_000L;
+	private static final long BASE_CUSTOMER = 900_000_000L;
+	private static final long BASE_ACCOUNT = 8_100_000_000L;
+	private static final int CUSTOMERS = 200;
+	private static final int ROWS = 20_000;
+
+	private static final Set<String> CUSTOMER_INDEXES = Set.of("idx_tx_from_customer", "idx_tx_to_customer");
+	private static final Set<String> ACCOUNT_INDEXES = Set.of("idx_tx_from_created", "idx_tx_to_created");
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	private SeededAccounts accounts;
+
+	@BeforeEach
+	void seed() {
+		accounts = new SeededAccounts(jdbc, BASE_ACCOUNT, CUSTOMERS).insert("SAVINGS", i -> 0L, i -> 0.0);
+		List<Object[]> rows = new ArrayList<>(ROWS);
+		LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+		for (int i = 0; i < ROWS; i++) {
+			long from = BASE_CUSTOMER + (i % CUSTOMERS);
+			long to = BASE_CUSTOMER + ((i * 7L + 3) % CUSTOMERS);
+			Timestamp at = Timestamp.valueOf(start.plusMinutes(i));
+			rows.add(new Object[] { BASE_ID + i, "TRANSFER", 100L, "seed", "SUCCESS", from, to,
+					from - BASE_CUSTOMER + BASE_ACCOUNT, to - BASE_CUSTOMER + BASE_ACCOUNT, at, at });
+		}
+		jdbc.batchUpdate("INSERT INTO transactions (id, type, amount_minor, description, status, " +
+				"from_customer_id, to_customer_id, from_account_id, to_account_id, created_at, updated_at) " +
+				"VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", rows);
+		jdbc.execute("ANALYZE TABLE transactions");
+	}
+
+	@AfterEach
+	void cleanUp() {
+		// every seeded transaction is between two of the seeded accounts
+		accounts.cleanUp();
+	}
+
+	@Test
+	void keysetFeedUsesCustomerIndexes() throws Exception {
+		String sql = queryOf("findByCustomerBefore", Long.class, LocalDateTime.class, long.class, int.class)
+				.replace(":customerId", String.valueOf(BASE_CUSTOMER + 17))
+				.replace(":createdAt", "'2024-01-10 00:00:00'")
+				.replace(":id", String.valueOf(Long.MAX_VALUE))
+				.replace(":limit", "21");
+		assertBranchesUseIndexes(sql, CUSTOMER_INDEXES);
+	}
+
+	@Test
+	void offsetFeedUsesCustomerIndexes() throws Exception {
+		String sql = queryOf("findCustomerFeedPage", Long.class, long.class, int.class, long.class)
+				.replace(":customerId", String.valueOf(BASE_CUSTOMER + 17))
+				.replace(":window", "41")
+				.replace(":limit", "21")
+				.replace(":offset", "20");
+		assertBranchesUseIndexes(sql, CUSTOMER_INDEXES);
+	}
+
+	@Test
+	void keysetAccountFeedUsesAccountIndexes() throws Exception {
+		String sql = queryOf("findByAccountBefore", Long.class, LocalDateTime.class, long.class, int.class)
+				.replace(":accountId", String.valueOf(BASE_ACCOUNT + 17))
+				.replace(":createdAt", "'2024-01-10 00:00:00'")
+				.replace(":id", String.valueOf(Long.MAX_VALUE))
+				.replace(":limit", "21");
+		assertBranchesUseIndexes(sql, ACCOUNT_INDEXES);
+	}
+
+	@Test
+	void offsetAccountFeedUsesAccountIndexes() throws Exception {
+		String sql = queryOf("findAccountFeedPage", Long.class, long.class, int.class, long.class)
+				.replace(":accountId", String.valueOf(BASE_ACCOUNT + 17))
+				.replace(":window", "41")
+				.replace(":limit", "21")
+				.replace(":offset", "20");
+		assertBranchesUseIndexes(sql, ACCOUNT_INDEXES);
+	}
+
+	@Test
+	void statementChunkUsesAccountIndexes() throws Exception {
+		String sql = queryOf("findStatementLinesBefore", Long.class, LocalDateTime.class, LocalDateTime.class,
+				long.class, int.class)
+				.replace(":accountId", String.valueOf(BASE_ACCOUNT + 17))
+				.replace(":since", "'2024-01-01 00:00:00'")
+				.replace(":createdAt", "'2024-01-10 00:00:00'")
+				.replace(":id", String.valueOf(Long.MAX_VALUE))
+				.replace(":limit", "500");
+		assertBranchesUseIndexes(sql, ACCOUNT_INDEXES);
+	}
+
+	private void assertBranchesUseIndexes(String sql, Set<String> indexes) {
+		List<Map<String, Object>> plan = jdbc.queryForList("EXPLAIN " + sql);
+		int branches = 0;
+		for (Map<String, Object> row : plan) {
+			if (!"t".equals(row.get("table"))) continue; // derived / union result rows
+			branches++;
+			assertNotEquals("ALL", row.get("type"), () -> "full scan in " + plan);
+			assertTrue(indexes.contains(String.valueOf(row.get("key"))), () -> "unexpected index in " + plan);
+			String extra = String.valueOf(row.get("Extra"));
+			assertFalse(extra.contains("filesort"), () -> "filesort in branch: " + plan);
+		}
+		assertTrue(branches == 2, () -> "expected two branches in " + plan);
+	}
+
+	private static String queryOf(String method, Class<?>... params) throws NoSuchMethodException {
+		return TransactionRepository.class.getMethod(method, params).getAnnotation(Query.class).value();
+	}
+}
@@ -0,0 +1,142 @@
+package com.emp.ems.Repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.emp.ems.SeededAccounts;
+import com.emp.ems.dto.TransactionCursor;
+import com.emp.ems.dto.TransactionView;
+
+/**
+ * What the two-branch customer feed returns, on the test database: every transaction of the
+ * customer exactly once (a transfer between two of its accounts, or from an account to itself,
+ * matches both branches), newest first, the same rows whether paged by offset or by keyset
+ * across rows that share a timestamp, and a count that agrees. TransactionFeedExplainTest checks
+ * the plans on MySQL.
+ */
+@SpringBootTest(properties = "bitbank.standing-orders.sweep-ms=3600000")
+class TransactionRepositoryTest {
+
+	private static final long BASE_ID = 8_200_000_000L;
+	private static final long CUSTOMER = 910_000_001L;
+	private static final long OTHER = 910_000_002L;
+	private static final LocalDateTime T = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+	// the customer's two accounts and one of the other customer's
+	private static final int A0 = 0;
+	private static final int A1 = 1;
+	private static final int B0 = 2;
+
+	@Autowired
+	private TransactionRepository repo;
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	private SeededAccounts accounts;
+	private final List<Object[]> rows = new ArrayList<>();
+	// the customer's feed, newest first
+	private final List<Long> expected = new ArrayList<>();
+
+	@BeforeEach
+	void seed() {
+		accounts = new SeededAccounts(jdbc, BASE_ID, 3).insert("SAVINGS", i -> 0L, i -> 0.0);
+
+		long t1 = tx(A0, B0, 1);
+		long t2 = tx(B0, A0, 2);
+		long t3 = tx(A0, A1, 3); // between the customer's own accounts
+		long t4 = tx(A0, A0, 4); // to itself
+		long t5 = tx(A0, B0, 5);
+		long t6 = tx(B0, A1, 5);
+		long t7 = tx(A1, A0, 5);
+		long deposit = tx(-1, A1, 6);
+		long withdrawal = tx(A0, -1, 7);
+		tx(B0, B0, 8); // the other customer's only
+		jdbc.batchUpdate("INSERT INTO transactions (id, type, amount_minor, description, status, " +
+				"from_customer_id, to_customer_id, from_account_id, to_account_id, created_at, updated_at) " +
+				"VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", rows);
+
+		expected.addAll(List.of(withdrawal, deposit, t7, t6, t5, t4, t3, t2, t1));
+	}
+
+	@AfterEach
+	void cleanUp() {
+		accounts.cleanUp();
+	}
+
+	@Test
+	void feedReturnsEachTransactionOnceNewestFirst() {
+		assertEquals(expected, ids(repo.findCustomerFeedPage(CUSTOMER, 100, 100, 0)));
+	}
+
+	@Test
+	void offsetPagesTileTheFeed() {
+		for (int size = 1; size <= 4; size++) {
+			List<Long> seen = new ArrayList<>();
+			for (long offset = 0; ; offset += size) {
+				// as the controller asks: one row more than the page tells whether another follows
+				List<Long> page = ids(repo.findCustomerFeedPage(CUSTOMER, offset + size + 1, size + 1, offset));
+				boolean hasNext = page.size() > size;
+				seen.addAll(hasNext ? page.subList(0, size) : page);
+				assertEquals(offset + size < expected.size(), hasNext, "hasNext at offset " + offset);
+				if (!hasNext) break;
+			}
+			assertEquals(expected, seen, "page size " + size);
+		}
+	}
+
+	@Test
+	void keysetPagesContinueAcrossEqualTimestamps() {
+		// three rows share T+5 minutes, so some page boundary falls between them for every size
+		for (int size = 1; size <= 4; size++) {
+			List<Long> seen = new ArrayList<>();
+			TransactionCursor after = TransactionCursor.START;
+			while (true) {
+				List<TransactionView.Row> page = repo.findByCustomerBefore(CUSTOMER, after.createdAt(), after.id(), size + 1);
+				List<TransactionView.Row> content = page.size() > size ? page.subList(0, size) : page;
+				seen.addAll(ids(content));
+				if (page.size() <= size) break;
+				TransactionView.Row last = content.get(content.size() - 1);
+				after = new TransactionCursor(last.getCreatedAt(), last.getId());
+			}
+			assertEquals(expected, seen, "page size " + size);
+		}
+	}
+
+	@Test
+	void countAgreesWithTheFeed() {
+		assertEquals(expected.size(), repo.countByCustomer(CUSTOMER));
+		// t1, t2, t5, t6 and its own transfer to itself
+		assertEquals(5, repo.countByCustomer(OTHER));
+		assertEquals(0, repo.countByCustomer(OTHER + 1));
+	}
+
+	// A row from account index `from` to `to` (-1: none) at T + minutes; returns its id
+	private long tx(int from, int to, int minutes) {
+		long id = BASE_ID + rows.size();
+		Timestamp at = Timestamp.valueOf(T.plusMinutes(minutes));
+		String type = from < 0 ? "DEPOSIT" : to < 0 ? "WITHDRAW" : "TRANSFER";
+		rows.add(new Object[] { id, type, 100L, "seed", "SUCCESS", customerOf(from), customerOf(to),
+				from < 0 ? null : accounts.id(from), to < 0 ? null : accounts.id(to), at, at });
+		return id;
+	}
+
+	private static Long customerOf(int account) {
+		if (account < 0) return null;
+		return account == B0 ? OTHER : CUSTOMER;
+	}
+
+	private static List<Long> ids(List<TransactionView.Row> rows) {
+		return rows.stream().map(TransactionView.Row::getId).toList();
+	}
+}
@@ -0,0 +1,77 @@
+package com.emp.ems;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.IntToLongFunction;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Accounts a database test seeds straight into the tables, in an id range of its own, and
+ * removes again with every row that references them. Account i has id firstId + i and
+ * account number "T" + id. Seeding removes leftovers of an aborted earlier run first.
+ */
+public final class SeededAccounts {
+
+	private final JdbcTemplate jdbc;
+	private final long firstId;
+	private final int count;
+
+	public SeededAccounts(JdbcTemplate jdbc, long firstId, int count) {
+		this.jdbc = jdbc;
+		this.firstId = firstId;
+		this.count = count;
+	}
+
+	public SeededAccounts insert(String type, IntToLongFunction balance, IntToDoubleFunction rate) {
+		cleanUp();
+		List<Object[]> rows = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			rows.add(new Object[] { id(i), number(i), type, balance.applyAsLong(i), rate.applyAsDouble(i) });
+		}
+		jdbc.batchUpdate("INSERT INTO accounts (id, account_number, type, balance_minor, interest_rate) " +
+				"VALUES (?, ?, ?, ?, ?)", rows);
+		return this;
+	}
+
+	public long id(int i) {
+		return firstId + i;
+	}
+
+	public String number(int i) {
+		return "T" + id(i);
+	}
+
+	public boolean contains(String accountNumber) {
+		if (accountNumber == null || !accountNumber.startsWith("T")) return false;
+		try {
+			long id = Long.parseLong(accountNumber.substring(1));
+			return id >= firstId && id < firstId + count;
+		} catch (NumberFormatException e) {
+			return false;
+		}
+	}
+
+	public long totalBalance() {
+		return jdbc.queryForObject("SELECT COALESCE(SUM(balance_minor), 0) FROM accounts WHERE id >= ? AND id < ?",
+				Long.class, firstId, firstId + count);
+	}
+
+	// Transactions paid into (column "to_account_id") or out of ("from_account_id") the accounts
+	public long countTransactions(String column) {
+		return jdbc.queryForObject("SELECT COUNT(*) FROM transactions WHERE " + column + " >= ? AND " + column + " < ?",
+				Long.class, firstId, firstId + count);
+	}
+
+	public void cleanUp() {
+		long end = firstId + count;
+		jdbc.update("DELETE FROM transactions WHERE from_account_id >= ? AND from_account_id < ?", firstId, end);
+		jdbc.update("DELETE FROM transactions WHERE to_account_id >= ? AND to_account_id < ?", firstId, end);
+		jdbc.update("DELETE FROM interest_accruals WHERE account_id >= ? AND account_id < ?", firstId, end);
+		jdbc.update("DELETE FROM fixed_deposits WHERE linked_account_id >= ? AND linked_account_id < ?", firstId, end);
+		jdbc.update("DELETE FROM scheduled_transactions WHERE from_account_number IN " +
+				"(SELECT account_number FROM accounts WHERE id >= ? AND id < ?)", firstId, end);
+		jdbc.update("DELETE FROM accounts WHERE id >= ? AND id < ?", firstId, end);
+	}
+}
@@ -0,0 +1,72 @@
+package com.emp.ems.ServiceImpl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class DueQueueTest {
+
+	private static final LocalDateTime NOW = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+	private final DueQueue queue = new DueQueue();
+
+	@Test
+	void pollsWhatIsDueEarliestFirst() {
+		queue.add(3, NOW.minusMinutes(1));
+		queue.add(1, NOW.minusMinutes(5));
+		queue.add(2, NOW.plusMinutes(1));
+
+		assertEquals(List.of(1L, 3L), queue.pollDue(NOW));
+		assertEquals(1, queue.size());
+		assertEquals(List.of(), queue.pollDue(NOW));
+		assertEquals(List.of(2L), queue.pollDue(NOW.plusMinutes(2)));
+		assertEquals(0, queue.size());
+	}
+
+	@Test
+	void dueAtNowIsNotDueYet() {
+		// an order is paid once nextExecution is before now, as the claim requires
+		queue.add(1, NOW);
+
+		assertEquals(List.of(), queue.pollDue(NOW));
+		assertEquals(List.of(1L), queue.pollDue(NOW.plusNanos(1)));
+	}
+
+	@Test
+	void addingAgainMovesTheEntry() {
+		queue.add(1, NOW.minusMinutes(1));
+		queue.add(1, NOW.plusMinutes(1));
+
+		assertEquals(1, queue.size());
+		assertEquals(List.of(), queue.pollDue(NOW));
+
+		queue.add(1, NOW.minusMinutes(2));
+		assertEquals(List.of(1L), queue.pollDue(NOW));
+		assertEquals(0, queue.size());
+	}
+
+	@Test
+	void removedEntriesAreNotPolled() {
+		queue.add(1, NOW.minusMinutes(1));
+		queue.add(2, NOW.minusMinutes(1));
+		queue.remove(1);
+		queue.remove(3); // never added
+
+		assertEquals(1, queue.size());
+		assertEquals(List.of(2L), queue.pollDue(NOW));
+	}
+
+	@Test
+	void equalTimesAreAllKeptInIdOrder() {
+		queue.add(5, NOW.minusMinutes(1));
+		queue.add(4, NOW.minusMinutes(1));
+		queue.add(6, NOW.minusMinutes(1));
+		queue.remove(5);
+
+		assertEquals(2, queue.size());
+		assertEquals(List.of(4L, 6L), queue.pollDue(NOW));
+	}
+}
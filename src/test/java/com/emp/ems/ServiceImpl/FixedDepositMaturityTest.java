@@ -0,0 +1,95 @@
+package com.emp.ems.ServiceImpl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.emp.ems.SeededAccounts;
+import com.emp.ems.Service.FixedDepositService;
+import com.emp.ems.entities.Money;
+
+/**
+ * A day on which bench.deposits fixed deposits mature at once, spread over a thousand linked
+ * accounts: every deposit must be paid exactly once, with one transaction row each, and a
+ * second run must pay nothing. Time it on a real database with
+ * {@code mvn test -Dtest=FixedDepositMaturityTest -Dbitbank.bench=true -Dbench.deposits=100000}
+ * and DB_URL etc. set.
+ */
+@SpringBootTest(properties = "bitbank.standing-orders.sweep-ms=3600000")
+class FixedDepositMaturityTest {
+
+	private static final long ACCOUNT_BASE_ID = 8_000_000_000L;
+	private static final long DEPOSIT_BASE_ID = 8_000_000_000L;
+	private static final int ACCOUNTS = 1000;
+	private static final LocalDate MATURITY = LocalDate.of(2000, 6, 30);
+
+	// several maturity batches (bitbank.fixed-deposits.chunk-size) by default
+	private final int deposits = Integer.getInteger("bench.deposits", 2_500);
+
+	@Autowired
+	private JdbcTemplate jdbc;
+	@Autowired
+	private FixedDepositService fixedDeposits;
+
+	private SeededAccounts accounts;
+	private long expectedPayout;
+
+	@BeforeEach
+	void seed() {
+		accounts = new SeededAccounts(jdbc, ACCOUNT_BASE_ID, ACCOUNTS).insert("CURRENT", i -> 0L, i -> 0.0);
+
+		List<Object[]> rows = new ArrayList<>(deposits);
+		expectedPayout = 0;
+		for (int i = 0; i < deposits; i++) {
+			long principal = 1_000_000L + (i * 7919L) % 50_000_000L;
+			LocalDate maturity = MATURITY.minusDays(i % 3);
+			LocalDate start = maturity.minusMonths(1 + i % 24);
+			expectedPayout += principal + Money.simpleInterest(principal, 0.07, ChronoUnit.DAYS.between(start, maturity));
+			rows.add(new Object[] { DEPOSIT_BASE_ID + i, principal, 0.07, start, maturity, false, 0L,
+					accounts.id(i % ACCOUNTS) });
+		}
+		jdbc.batchUpdate("INSERT INTO fixed_deposits (id, principal_minor, interest_rate, start_date, maturity_date, " +
+				"closed, interest_minor, linked_account_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", rows);
+	}
+
+	@AfterEach
+	void cleanUp() {
+		accounts.cleanUp();
+	}
+
+	@Test
+	void maturesEveryDueDepositOnceInBatches() {
+		assertEquals(deposits, fixedDeposits.matureDue(MATURITY));
+
+		assertEquals(expectedPayout, accounts.totalBalance());
+		assertEquals(deposits, accounts.countTransactions("to_account_id"));
+		assertEquals(0, (long) jdbc.queryForObject("SELECT COUNT(*) FROM fixed_deposits WHERE id >= ? AND id < ? " +
+				"AND closed = false", Long.class, DEPOSIT_BASE_ID, DEPOSIT_BASE_ID + deposits));
+
+		// nothing left to pay on a rerun
+		assertEquals(0, fixedDeposits.matureDue(MATURITY));
+		assertEquals(expectedPayout, accounts.totalBalance());
+	}
+
+	@Test
+	@EnabledIfSystemProperty(named = "bitbank.bench", matches = "true")
+	void maturityThroughput() {
+		long start = System.nanoTime();
+		int paid = fixedDeposits.matureDue(MATURITY);
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		assertEquals(deposits, paid);
+		System.out.printf("fixed-deposit maturity, %d deposits: %.2fs (%.0f/s)%n", deposits, seconds, deposits / seconds);
+	}
+}
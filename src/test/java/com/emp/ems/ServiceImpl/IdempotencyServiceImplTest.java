@@ -0,0 +1,140 @@
+package com.emp.ems.ServiceImpl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.emp.ems.SeededAccounts;
+import com.emp.ems.Repositories.AccountRepository;
+import com.emp.ems.Repositories.IdempotencyRecordRepository;
+import com.emp.ems.Service.IdempotencyService;
+import com.emp.ems.Service.TransactionService;
+
+/**
+ * Idempotency-Key claims against the test database: a key runs its request once, a different
+ * request under the same key is refused, a request that fails after moving money leaves
+ * neither the money move nor the claim behind, and the account stays locked until the claim
+ * and the money move have committed.
+ */
+@SpringBootTest(properties = "bitbank.standing-orders.sweep-ms=3600000")
+class IdempotencyServiceImplTest {
+
+	@Autowired
+	private IdempotencyService idempotency;
+	@Autowired
+	private IdempotencyRecordRepository recordRepo;
+	@Autowired
+	private TransactionService transactionService;
+	@Autowired
+	private AccountRepository accountRepo;
+	@Autowired
+	private AccountLockManager locks;
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	// Keys are per run, a key left behind by an aborted run would replay its stale response
+	private final String prefix = "IDM" + System.currentTimeMillis() % 1_000_000_000L + "-";
+	private final AtomicInteger runs = new AtomicInteger();
+	private SeededAccounts accounts;
+	private String account;
+
+	@BeforeEach
+	void seed() {
+		accounts = new SeededAccounts(jdbc, 6_100_000_000L, 1).insert("SAVINGS", i -> 10_000L, i -> 0.0);
+		account = accounts.number(0);
+	}
+
+	@AfterEach
+	void cleanUp() {
+		jdbc.update("DELETE FROM idempotency_keys WHERE idempotency_key LIKE ?", "%:" + prefix + "%");
+		accounts.cleanUp();
+	}
+
+	@Test
+	void repeatedRequestRunsOnce() {
+		Map<String, Object> request = Map.of("accountNumber", account, "amount", 10.0);
+		ResponseEntity<?> first = idempotency.execute("deposit", prefix + "k1", request, this::ok);
+		ResponseEntity<?> again = idempotency.execute("deposit", prefix + "k1", request, this::ok);
+
+		assertEquals(1, runs.get());
+		assertEquals(200, again.getStatusCode().value());
+		assertEquals("true", again.getHeaders().getFirst("Idempotent-Replay"));
+		assertEquals(first.getStatusCode(), again.getStatusCode());
+	}
+
+	@Test
+	void differentRequestUnderTheSameKeyIsRefused() {
+		idempotency.execute("deposit", prefix + "k2", Map.of("amount", 10.0), this::ok);
+		ResponseEntity<?> other = idempotency.execute("deposit", prefix + "k2", Map.of("amount", 99.0), this::ok);
+
+		assertEquals(422, other.getStatusCode().value());
+		assertEquals(1, runs.get());
+	}
+
+	@Test
+	void failedRequestReleasesTheKey() {
+		Map<String, Object> request = Map.of("amount", 10.0);
+		ResponseEntity<?> failed = idempotency.execute("deposit", prefix + "k3", request,
+				() -> ResponseEntity.badRequest().build());
+		assertEquals(400, failed.getStatusCode().value());
+		assertTrue(recordRepo.findByIdempotencyKey("deposit:" + prefix + "k3").isEmpty());
+
+		idempotency.execute("deposit", prefix + "k3", request, this::ok);
+		assertEquals(1, runs.get());
+	}
+
+	@Test
+	void moneyMoveAndOutcomeCommitTogether() {
+		assertThrows(IllegalStateException.class, () -> idempotency.execute("deposit", prefix + "k4", Map.of(), () -> {
+			transactionService.deposit(account, 500);
+			throw new IllegalStateException("crashed before the response was stored");
+		}, account));
+
+		assertEquals(10_000, accountRepo.findByAccountNumber(account).getBalanceMinor());
+		assertTrue(recordRepo.findByIdempotencyKey("deposit:" + prefix + "k4").isEmpty());
+	}
+
+	@Test
+	void accountStaysLockedUntilTheClaimCommits() throws Exception {
+		AtomicLong seen = new AtomicLong();
+		Thread[] reader = new Thread[1];
+		idempotency.execute("deposit", prefix + "k5", Map.of("amount", 5.0), () -> {
+			transactionService.deposit(account, 500);
+			// the deposit's own template has returned; a caller that gets the stripe now must
+			// already see the committed balance
+			reader[0] = new Thread(() -> seen.set(locks.withLocks(() -> jdbc.queryForObject(
+					"SELECT balance_minor FROM accounts WHERE account_number = ?", Long.class, account), account)));
+			reader[0].start();
+			sleep(300);
+			return ok();
+		}, account);
+		reader[0].join();
+
+		assertEquals(10_500, seen.get());
+	}
+
+	private static void sleep(long ms) {
+		try {
+			Thread.sleep(ms);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private ResponseEntity<?> ok() {
+		runs.incrementAndGet();
+		return ResponseEntity.ok(Map.of("success", true));
+	}
+}
@@ -0,0 +1,202 @@
+package com.emp.ems.ServiceImpl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.emp.ems.SeededAccounts;
+import com.emp.ems.Repositories.AccountRepository;
+import com.emp.ems.Repositories.TransactionRepository;
+import com.emp.ems.entities.Account;
+import com.emp.ems.entities.AccountType;
+import com.emp.ems.entities.InterestRun;
+import com.emp.ems.entities.Money;
+import com.emp.ems.entities.Transaction;
+import com.emp.ems.entities.TransactionType;
+
+/**
+ * Set-based interest accrual and posting on seeded savings accounts: reruns credit nothing
+ * twice, an interrupted run resumes with only the ranges left, and the set-based path credits
+ * what the per-account save loop it replaced did. Both variants credit every savings account
+ * in the database, so give the timing comparison a dedicated one:
+ * {@code mvn test -Dtest=InterestAccrualTest -Dbitbank.bench=true -Dbench.accounts=200000}
+ * with DB_URL etc. set.
+ */
+@SpringBootTest(properties = "bitbank.standing-orders.sweep-ms=3600000")
+class InterestAccrualTest {
+
+	private static final long BASE_ID = 7_000_000_000L;
+	// the last day of a month that is over, so it can be posted right away
+	private static final LocalDate RUN_DATE = LocalDate.of(2000, 1, 31);
+
+	// several accrual chunks (bitbank.interest.chunk-size) by default
+	private final int count = Integer.getInteger("bench.accounts", 5_000);
+
+	@Autowired
+	private JdbcTemplate jdbc;
+	@Autowired
+	private AccountRepository accountRepo;
+	@Autowired
+	private TransactionRepository transactionRepo;
+	@Autowired
+	private InterestService interestService;
+	@Autowired
+	private PlatformTransactionManager txManager;
+
+	private SeededAccounts accounts;
+
+	@BeforeEach
+	void seed() {
+		accounts = new SeededAccounts(jdbc, BASE_ID, count).insert("SAVINGS", InterestAccrualTest::balance,
+				i -> 0.04 + (i % 5) * 0.005);
+	}
+
+	@AfterEach
+	void cleanUp() {
+		accounts.cleanUp();
+		jdbc.update("DELETE FROM interest_run_ranges WHERE run_id IN (SELECT id FROM interest_runs " +
+				"WHERE run_date BETWEEN ? AND ?)", RUN_DATE.withDayOfMonth(1), RUN_DATE);
+		jdbc.update("DELETE FROM interest_runs WHERE run_date BETWEEN ? AND ?", RUN_DATE.withDayOfMonth(1), RUN_DATE);
+	}
+
+	@Test
+	void rerunsCreditNothingTwice() {
+		long before = accounts.totalBalance();
+		interestService.accrue(RUN_DATE);
+		long interest = seededAccrued();
+		assertTrue(interest > 0);
+
+		// accrued, not on the balances or in the ledger until posted
+		assertEquals(before, accounts.totalBalance());
+		assertEquals(0, seededInterestRows());
+
+		interestService.accrue(RUN_DATE);
+		assertEquals(interest, seededAccrued());
+		assertEquals(count, seededAccrualRows());
+
+		interestService.postInterest(YearMonth.from(RUN_DATE));
+		assertEquals(interest, accounts.totalBalance() - before);
+		long rows = seededInterestRows();
+
+		interestService.postInterest(YearMonth.from(RUN_DATE));
+		assertEquals(interest, accounts.totalBalance() - before);
+		assertEquals(rows, seededInterestRows());
+	}
+
+	@Test
+	@EnabledIfSystemProperty(named = "bitbank.bench", matches = "true")
+	void setBasedMatchesAndBeatsPerAccountLoop() {
+		long before = accounts.totalBalance();
+
+		long start = System.nanoTime();
+		new TransactionTemplate(txManager).executeWithoutResult(status -> perAccountLoop());
+		double loopSeconds = (System.nanoTime() - start) / 1e9;
+		long loopInterest = accounts.totalBalance() - before;
+		long loopRows = seededInterestRows();
+
+		jdbc.update("DELETE FROM transactions WHERE to_account_id >= ? AND to_account_id < ?", BASE_ID, BASE_ID + count);
+		jdbc.update("UPDATE accounts SET balance_minor = 100000 + MOD((id - ?) * 7919, 10000000) WHERE id >= ? AND id < ?",
+				BASE_ID, BASE_ID, BASE_ID + count);
+		assertEquals(before, accounts.totalBalance());
+
+		start = System.nanoTime();
+		interestService.accrue(RUN_DATE);
+		double setSeconds = (System.nanoTime() - start) / 1e9;
+		assertEquals(loopInterest, seededAccrued());
+
+		interestService.postInterest(YearMonth.from(RUN_DATE));
+		assertEquals(loopInterest, accounts.totalBalance() - before);
+		assertEquals(loopRows, seededInterestRows());
+
+		System.out.printf("interest accrual, %d accounts: per-account loop %.2fs, set-based %.2fs (%.1fx)%n",
+				count, loopSeconds, setSeconds, loopSeconds / setSeconds);
+	}
+
+	@Test
+	void resumedRunCreditsOnlyTheRangesLeft() {
+		InterestRun run = interestService.accrue(RUN_DATE);
+		long interest = seededAccrued();
+
+		// roll the state back to a crash with every other seeded range not committed yet
+		List<Map<String, Object>> lost = jdbc.queryForList("SELECT id, range_start, range_end FROM interest_run_ranges " +
+				"WHERE run_id = ? AND range_start >= ? ORDER BY range_end", run.getId(), BASE_ID - 1);
+		for (int i = 0; i < lost.size(); i += 2) {
+			jdbc.update("DELETE FROM interest_accruals WHERE account_id > ? AND account_id <= ?",
+					lost.get(i).get("range_start"), lost.get(i).get("range_end"));
+			jdbc.update("UPDATE interest_run_ranges SET status = 'PENDING' WHERE id = ?", lost.get(i).get("id"));
+		}
+		jdbc.update("UPDATE interest_runs SET status = 'FAILED' WHERE id = ?", run.getId());
+		assertTrue(seededAccrued() < interest);
+
+		run = interestService.accrue(RUN_DATE);
+		assertEquals("COMPLETED", run.getStatus());
+		assertEquals(interest, seededAccrued());
+		assertEquals(count, seededAccrualRows());
+	}
+
+	@Test
+	void smallBalancesEarnOverTheMonth() {
+		// 10 rupees at 10% is 0.27 paise a day: nothing when rounded daily, 8 paise over January
+		jdbc.update("UPDATE accounts SET balance_minor = 1000, interest_rate = 0.1 WHERE id = ?", BASE_ID);
+		for (LocalDate day = RUN_DATE.withDayOfMonth(1); !day.isAfter(RUN_DATE); day = day.plusDays(1)) {
+			interestService.accrue(day);
+		}
+		assertEquals(Money.microsToPaise(31 * Money.dailyInterestMicros(1000L, 0.1)),
+				jdbc.queryForObject("SELECT accrued_minor FROM interest_accruals WHERE account_id = ?", Long.class, BASE_ID));
+
+		interestService.postInterest(YearMonth.from(RUN_DATE));
+		assertEquals(1008L, jdbc.queryForObject("SELECT balance_minor FROM accounts WHERE id = ?", Long.class, BASE_ID));
+	}
+
+	// The accrual as it was before it went set-based (one day, so rounding it at once matches posting)
+	private void perAccountLoop() {
+		for (Account acc : accountRepo.findByType(AccountType.SAVINGS)) {
+			long interest = Money.microsToPaise(Money.dailyInterestMicros(acc.getBalanceMinor(), acc.getInterestRate()));
+			if (interest <= 0) continue;
+
+			acc.setBalanceMinor(Money.add(acc.getBalanceMinor(), interest));
+			accountRepo.save(acc);
+
+			Transaction tx = new Transaction();
+			tx.setType(TransactionType.INTEREST);
+			tx.setAmountMinor(interest);
+			tx.setDescription("Daily interest");
+			tx.setToAccount(acc);
+			tx.setStatus("SUCCESS");
+			transactionRepo.save(tx);
+		}
+	}
+
+	private static long balance(int i) {
+		return 100_000L + (i * 7919L) % 10_000_000L;
+	}
+
+	private long seededAccrued() {
+		return jdbc.queryForObject("SELECT COALESCE(SUM(accrued_minor), 0) FROM interest_accruals WHERE account_id >= ? " +
+				"AND account_id < ?", Long.class, BASE_ID, BASE_ID + count);
+	}
+
+	private long seededAccrualRows() {
+		return jdbc.queryForObject("SELECT COUNT(*) FROM interest_accruals WHERE account_id >= ? AND account_id < ?",
+				Long.class, BASE_ID, BASE_ID + count);
+	}
+
+	private long seededInterestRows() {
+		return jdbc.queryForObject("SELECT COUNT(*) FROM transactions WHERE type = 'INTEREST' AND to_account_id >= ? " +
+				"AND to_account_id < ?", Long.class, BASE_ID, BASE_ID + count);
+	}
+}
@@ -0,0 +1,90 @@
+package com.emp.ems.ServiceImpl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class OtpServiceImplTest {
+
+	@Test
+	void codeIsValidOnce() {
+		OtpServiceImpl otps = new OtpServiceImpl(new SimpleMeterRegistry(), 300, 10);
+		String code = otps.generateOtp("a@test.local");
+
+		assertFalse(otps.validateOtp("a@test.local", code.equals("000000") ? "111111" : "000000"));
+		assertFalse(otps.validateOtp("b@test.local", code));
+		assertTrue(otps.validateOtp("a@test.local", code));
+		assertFalse(otps.validateOtp("a@test.local", code));
+		assertEquals(0, otps.size());
+	}
+
+	@Test
+	void newCodeReplacesThePendingOne() {
+		OtpServiceImpl otps = new OtpServiceImpl(new SimpleMeterRegistry(), 300, 10);
+		String first = otps.generateOtp("a@test.local");
+		String second;
+		do {
+			second = otps.generateOtp("a@test.local");
+		} while (second.equals(first));
+
+		assertEquals(1, otps.size());
+		assertFalse(otps.validateOtp("a@test.local", first));
+		assertTrue(otps.validateOtp("a@test.local", second));
+	}
+
+	@Test
+	void expiredCodesAreRejectedAndSwept() {
+		OtpServiceImpl otps = new OtpServiceImpl(new SimpleMeterRegistry(), 0, 10);
+		String code = otps.generateOtp("a@test.local");
+		otps.generateOtp("b@test.local");
+
+		assertFalse(otps.validateOtp("a@test.local", code));
+		assertEquals(1, otps.size());
+		otps.sweepExpired();
+		assertEquals(0, otps.size());
+	}
+
+	@Test
+	void sizeCapHoldsUnderConcurrentRequests() throws Exception {
+		OtpServiceImpl otps = new OtpServiceImpl(new SimpleMeterRegistry(), 300, 100);
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		List<String> accepted = new ArrayList<>();
+		List<Future<String>> results = new ArrayList<>();
+		try {
+			for (int i = 0; i < 1000; i++) {
+				String email = "user" + i + "@test.local";
+				results.add(pool.submit(() -> {
+					try {
+						otps.generateOtp(email);
+						return email;
+					} catch (IllegalStateException e) {
+						return null;
+					}
+				}));
+			}
+			for (Future<String> f : results) {
+				if (f.get() != null) accepted.add(f.get());
+			}
+			assertEquals(100, accepted.size());
+		} finally {
+			pool.shutdown();
+		}
+		assertEquals(100, otps.size());
+		assertThrows(IllegalStateException.class, () -> otps.generateOtp("late@test.local"));
+
+		// an email that already has a code can still get a new one
+		String code = otps.generateOtp(accepted.get(0));
+		assertTrue(otps.validateOtp(accepted.get(0), code));
+	}
+}
@@ -0,0 +1,231 @@
+package com.emp.ems.ServiceImpl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.emp.ems.SeededAccounts;
+import com.emp.ems.Controller.AdminController;
+import com.emp.ems.Repositories.ScheduledTransactionRepository;
+import com.emp.ems.Service.TransactionService;
+import com.emp.ems.entities.Frequency;
+import com.emp.ems.entities.ScheduledTransaction;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * One standing-order node of its own against the test database, driven by calling its
+ * scheduled methods directly: the sweep loads what falls due within the horizon and the
+ * 1 s dispatch pays it. Failed payments are retried after base-minutes, then twice that,
+ * and suspended after max-attempts in a row.
+ */
+@SpringBootTest(properties = "bitbank.standing-orders.sweep-ms=3600000")
+class ScheduledTransactionServiceImplTest {
+
+	private static final long BASE_ID = 6_400_000_000L;
+	private static final long BALANCE = 1_000_000L;
+	private static final long UNDERFUNDED = 2 * BALANCE;
+	private static final long BASE_MINUTES = 5;
+	private static final int MAX_ATTEMPTS = 3;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+	@Autowired
+	private ScheduledTransactionRepository orderRepo;
+	@Autowired
+	private TransactionService transactionService;
+	@Autowired
+	private AccountLockManager locks;
+	@Autowired
+	private PlatformTransactionManager txManager;
+	@Autowired
+	private AdminController admin;
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private ScheduledTransactionServiceImpl node;
+	private SeededAccounts accounts;
+
+	@BeforeEach
+	void setUp() {
+		accounts = new SeededAccounts(jdbc, BASE_ID, 2).insert("SAVINGS", i -> BALANCE, i -> 0.0);
+		node = new ScheduledTransactionServiceImpl(orderRepo, transactionService, locks, txManager, registry,
+				2, 25, 60, "test-node", 120, BASE_MINUTES, 720, MAX_ATTEMPTS);
+	}
+
+	@AfterEach
+	void cleanUp() {
+		node.shutdown();
+		accounts.cleanUp();
+	}
+
+	@Test
+	void dispatchedPaymentLeavesTheSweepBacklogAlone() throws Exception {
+		LocalDateTime due = LocalDateTime.now().plusSeconds(2).withNano(0);
+		ScheduledTransaction order = order(due);
+		node.processDuePayments(); // not due yet: queued for dispatch
+		awaitPaid(0);
+		double backlog = gauge("bitbank.standing-orders.backlog");
+
+		awaitPast(due);
+		node.dispatchDue();
+		awaitPaid(1);
+
+		assertEquals(due.plusDays(1), orderRepo.findById(order.getId()).orElseThrow().getNextExecution());
+		assertEquals(backlog, gauge("bitbank.standing-orders.backlog"));
+	}
+
+	@Test
+	void dispatchPaysDueOrdersButNotCancelledOnes() throws Exception {
+		LocalDateTime due = LocalDateTime.now().plusSeconds(2).withNano(0);
+		ScheduledTransaction kept = order(due);
+		ScheduledTransaction cancelled = order(due);
+		node.processDuePayments();
+		assertEquals(2, gauge("bitbank.standing-orders.upcoming"));
+
+		node.cancelScheduledTransaction(cancelled.getId());
+		assertEquals(1, gauge("bitbank.standing-orders.upcoming"));
+
+		node.dispatchDue(); // nothing due yet
+		awaitPaid(0);
+		awaitPast(due);
+		node.dispatchDue();
+		awaitPaid(1);
+
+		assertEquals(due.plusDays(1), orderRepo.findById(kept.getId()).orElseThrow().getNextExecution());
+		ScheduledTransaction c = orderRepo.findById(cancelled.getId()).orElseThrow();
+		assertFalse(c.isActive());
+		assertEquals(due, c.getNextExecution());
+		assertEquals(1, accounts.countTransactions("from_account_id"));
+		// the next run, a day later, is beyond the horizon and left to a later sweep
+		assertEquals(0, gauge("bitbank.standing-orders.upcoming"));
+	}
+
+	@Test
+	void sweepCountsItsPaymentsOffTheBacklog() {
+		order(LocalDateTime.now().minusHours(1));
+		node.processDuePayments();
+
+		assertEquals(1, counter("bitbank.standing-orders.paid"));
+		assertEquals(0.0, gauge("bitbank.standing-orders.backlog"));
+	}
+
+	@Test
+	void failedPaymentsBackOffAndASuccessKeepsTheOriginalSlot() {
+		LocalDateTime slot = LocalDateTime.now().minusHours(1).withNano(0);
+		Long id = order(slot, UNDERFUNDED).getId();
+
+		ScheduledTransaction s = sweepExpectingRetryIn(id, BASE_MINUTES);
+		assertEquals(1, s.getFailureCount());
+		assertEquals("INSUFFICIENT_FUNDS", s.getLastFailureReason());
+		assertEquals(slot, s.getMissedExecution());
+
+		makeDue(id);
+		s = sweepExpectingRetryIn(id, 2 * BASE_MINUTES);
+		assertEquals(2, s.getFailureCount());
+		assertEquals(slot, s.getMissedExecution());
+
+		jdbc.update("UPDATE accounts SET balance_minor = ? WHERE id = ?", 2 * UNDERFUNDED, accounts.id(0));
+		makeDue(id);
+		node.processDuePayments();
+		s = orderRepo.findById(id).orElseThrow();
+		assertEquals(slot.plusDays(1), s.getNextExecution()); // from the missed slot, not from the retry
+		assertEquals(0, s.getFailureCount());
+		assertNull(s.getMissedExecution());
+		assertTrue(s.isActive());
+		assertEquals(1, counter("bitbank.standing-orders.paid"));
+		assertEquals(2, counter("bitbank.standing-orders.failed"));
+	}
+
+	@Test
+	void ordersFailingMaxAttemptsInARowAreSuspended() {
+		Long id = order(LocalDateTime.now().minusHours(1).withNano(0), UNDERFUNDED).getId();
+
+		for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+			if (attempt > 1) makeDue(id);
+			node.processDuePayments();
+		}
+		ScheduledTransaction s = orderRepo.findById(id).orElseThrow();
+		assertTrue(s.isSuspended());
+		assertFalse(s.isActive());
+		assertEquals(MAX_ATTEMPTS, s.getFailureCount());
+		assertEquals(1, counter("bitbank.standing-orders.suspended"));
+
+		makeDue(id);
+		node.processDuePayments(); // inactive: not tried again
+		assertEquals(MAX_ATTEMPTS, counter("bitbank.standing-orders.failed"));
+		assertEquals(0, accounts.countTransactions("from_account_id"));
+
+		List<ScheduledTransaction> listed = admin.getSuspendedScheduledTransactions().getBody();
+		ScheduledTransaction shown = listed.stream().filter(o -> o.getId().equals(id)).findFirst().orElseThrow();
+		assertEquals("INSUFFICIENT_FUNDS", shown.getLastFailureReason());
+	}
+
+	// As if the retry time had come
+	private void makeDue(Long id) {
+		jdbc.update("UPDATE scheduled_transactions SET next_execution = ? WHERE id = ?",
+				Timestamp.valueOf(LocalDateTime.now().minusMinutes(1)), id);
+	}
+
+	// The retry is due `minutes` after the sweep's start
+	private ScheduledTransaction sweepExpectingRetryIn(Long id, long minutes) {
+		LocalDateTime earliest = LocalDateTime.now().plusMinutes(minutes).truncatedTo(ChronoUnit.MICROS); // column precision
+		node.processDuePayments();
+		LocalDateTime latest = LocalDateTime.now().plusMinutes(minutes);
+		ScheduledTransaction s = orderRepo.findById(id).orElseThrow();
+		assertFalse(s.getNextExecution().isBefore(earliest), () -> s.getNextExecution() + " < " + earliest);
+		assertFalse(s.getNextExecution().isAfter(latest), () -> s.getNextExecution() + " > " + latest);
+		assertTrue(s.isActive());
+		return s;
+	}
+
+	private ScheduledTransaction order(LocalDateTime due) {
+		return order(due, 100);
+	}
+
+	private ScheduledTransaction order(LocalDateTime due, long amountMinor) {
+		ScheduledTransaction s = new ScheduledTransaction();
+		s.setFromAccountNumber(accounts.number(0));
+		s.setToAccountNumber(accounts.number(1));
+		s.setAmountMinor(amountMinor);
+		s.setFrequency(Frequency.DAILY);
+		s.setNextExecution(due);
+		s.setActive(true);
+		return orderRepo.save(s);
+	}
+
+	private double gauge(String name) {
+		return registry.get(name).gauge().value();
+	}
+
+	private static void awaitPast(LocalDateTime at) throws InterruptedException {
+		while (!LocalDateTime.now().isAfter(at)) {
+			Thread.sleep(10);
+		}
+	}
+
+	// Dispatched payments run on the node's workers
+	private void awaitPaid(int count) throws InterruptedException {
+		for (int i = 0; i < 500 && counter("bitbank.standing-orders.paid") < count; i++) {
+			Thread.sleep(10);
+		}
+		assertEquals(count, counter("bitbank.standing-orders.paid"));
+	}
+
+	private int counter(String name) {
+		return (int) registry.get(name).counter().count();
+	}
+}
@@ -0,0 +1,142 @@
+package com.emp.ems.ServiceImpl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.emp.ems.SeededAccounts;
+import com.emp.ems.Repositories.ScheduledTransactionRepository;
+import com.emp.ems.Service.TransactionService;
+import com.emp.ems.entities.Frequency;
+import com.emp.ems.entities.ScheduledTransaction;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Several "nodes" (service instances with their own node id and worker pool) sweep the same
+ * due standing orders at once against the test database; every order must be paid exactly once,
+ * expired leases of a dead node taken over and live leases of another node left alone.
+ */
+@SpringBootTest(properties = "bitbank.standing-orders.sweep-ms=3600000")
+class StandingOrderClaimTest {
+
+	private static final long BASE_ID = 6_000_000_000L;
+	private static final int NODES = 4;
+	// Workers of all nodes share this JVM's connection pool here; keep them well below it, the
+	// pooled id generator needs a connection of its own while a worker holds one
+	private static final int WORKERS_PER_NODE = 4;
+	private static final int ACCOUNTS = 200;
+	private static final int ORDERS = 400;
+	private static final int CRASHED = 10;
+	private static final int LEASED = 5;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+	@Autowired
+	private ScheduledTransactionRepository orderRepo;
+	@Autowired
+	private TransactionService transactionService;
+	@Autowired
+	private AccountLockManager locks;
+	@Autowired
+	private PlatformTransactionManager txManager;
+
+	private final LocalDateTime due = LocalDateTime.now().minusHours(1).withNano(0);
+	private SeededAccounts accounts;
+
+	@BeforeEach
+	void seed() {
+		accounts = new SeededAccounts(jdbc, BASE_ID, ACCOUNTS).insert("SAVINGS", i -> 1_000_000L, i -> 0.0);
+		List<ScheduledTransaction> orders = new ArrayList<>();
+		for (int i = 0; i < ORDERS + CRASHED + LEASED; i++) {
+			ScheduledTransaction s = new ScheduledTransaction();
+			s.setFromAccountNumber(accounts.number(i % ACCOUNTS));
+			s.setToAccountNumber(accounts.number((i + ACCOUNTS / 2) % ACCOUNTS));
+			s.setAmountMinor(100);
+			s.setFrequency(Frequency.DAILY);
+			s.setNextExecution(due);
+			if (i >= ORDERS + CRASHED) {
+				s.setLeaseOwner("busy-node");
+				s.setLeaseExpiresAt(LocalDateTime.now().plusHours(1));
+			} else if (i >= ORDERS) {
+				s.setLeaseOwner("crashed-node");
+				s.setLeaseExpiresAt(LocalDateTime.now().minusMinutes(5));
+			}
+			orders.add(s);
+		}
+		orderRepo.saveAll(orders);
+	}
+
+	@AfterEach
+	void cleanUp() {
+		accounts.cleanUp();
+	}
+
+	@Test
+	void concurrentNodesPayEachDueOrderOnce() throws Exception {
+		List<ScheduledTransactionServiceImpl> nodes = new ArrayList<>();
+		List<SimpleMeterRegistry> registries = new ArrayList<>();
+		for (int n = 0; n < NODES; n++) {
+			SimpleMeterRegistry registry = new SimpleMeterRegistry();
+			registries.add(registry);
+			nodes.add(new ScheduledTransactionServiceImpl(orderRepo, transactionService, locks, txManager, registry,
+					WORKERS_PER_NODE, 25, 60, "node-" + n, 120, 5, 720, 6));
+		}
+
+		ExecutorService pool = Executors.newFixedThreadPool(NODES);
+		CountDownLatch start = new CountDownLatch(1);
+		try {
+			List<Future<?>> runs = new ArrayList<>();
+			for (ScheduledTransactionServiceImpl node : nodes) {
+				runs.add(pool.submit(() -> {
+					start.await();
+					node.processDuePayments();
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> f : runs) f.get();
+		} finally {
+			pool.shutdown();
+			nodes.forEach(ScheduledTransactionServiceImpl::shutdown);
+		}
+
+		double total = 0;
+		int busyNodes = 0;
+		for (SimpleMeterRegistry registry : registries) {
+			double paid = registry.get("bitbank.standing-orders.paid").counter().count();
+			total += paid;
+			if (paid > 0) busyNodes++;
+		}
+		assertEquals(ORDERS + CRASHED, (int) total);
+		assertTrue(busyNodes > 1, "due orders were not split between nodes");
+
+		assertEquals(ORDERS + CRASHED, accounts.countTransactions("from_account_id"));
+
+		for (ScheduledTransaction s : orderRepo.findAll()) {
+			if (!accounts.contains(s.getFromAccountNumber())) continue;
+			if ("busy-node".equals(s.getLeaseOwner())) {
+				assertEquals(due, s.getNextExecution());
+			} else {
+				assertEquals(due.plusDays(1), s.getNextExecution());
+				assertNull(s.getLeaseOwner());
+			}
+		}
+	}
+}
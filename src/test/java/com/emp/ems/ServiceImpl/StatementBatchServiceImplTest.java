@@ -0,0 +1,132 @@
+package com.emp.ems.ServiceImpl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.emp.ems.Repositories.AccountRepository;
+import com.emp.ems.Repositories.StatementBatchRunRepository;
+import com.emp.ems.Repositories.TransactionRepository;
+import com.emp.ems.Service.StatementService;
+import com.emp.ems.dto.StatementPeriod;
+import com.emp.ems.entities.Account;
+import com.emp.ems.entities.StatementBatchRun;
+
+/**
+ * A statement that fails to render must keep the run's checkpoint below its partition and
+ * leave the run PARTIAL, so starting the month again renders it.
+ */
+class StatementBatchServiceImplTest {
+
+	private static final YearMonth MONTH = YearMonth.now().minusMonths(1);
+	private static final int ACCOUNTS = 10;
+	private static final long BROKEN = 5; // in the third partition (two accounts each)
+
+	@TempDir
+	Path dir;
+
+	private final List<Account> accounts = new ArrayList<>();
+	private final AccountRepository accountRepo = mock(AccountRepository.class);
+	private final StatementBatchRunRepository runRepo = mock(StatementBatchRunRepository.class);
+	private final StatementService statementService = mock(StatementService.class);
+	private StatementBatchServiceImpl batch;
+	private StatementBatchRun stored;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		for (long id = 1; id <= ACCOUNTS; id++) {
+			Account a = new Account();
+			ReflectionTestUtils.setField(a, "id", id);
+			accounts.add(a);
+		}
+		when(accountRepo.count()).thenReturn((long) ACCOUNTS);
+		when(accountRepo.countByIdLessThanEqual(anyLong()))
+				.thenAnswer(inv -> accounts.stream().filter(a -> a.getId() <= inv.<Long>getArgument(0)).count());
+		when(accountRepo.findPartitionAfter(anyLong(), any(Pageable.class))).thenAnswer(inv -> {
+			long after = inv.getArgument(0);
+			int size = inv.<Pageable>getArgument(1).getPageSize();
+			return accounts.stream().filter(a -> a.getId() > after).limit(size).toList();
+		});
+		when(runRepo.findByPeriod(MONTH.toString())).thenAnswer(inv -> Optional.ofNullable(stored));
+		when(runRepo.save(any(StatementBatchRun.class))).thenAnswer(inv -> stored = inv.getArgument(0));
+		doAnswer(inv -> {
+			inv.<OutputStream>getArgument(3).write('%');
+			return null;
+		}).when(statementService).writeStatementPdf(any(), any(StatementPeriod.class), any(), any());
+
+		batch = new StatementBatchServiceImpl(accountRepo, mock(TransactionRepository.class), statementService,
+				runRepo, dir.toString(), 2, 2);
+	}
+
+	@AfterEach
+	void tearDown() {
+		batch.shutdown();
+	}
+
+	@Test
+	void failedStatementHoldsTheCheckpointAndIsRenderedOnRerun() throws Exception {
+		doThrow(new IllegalStateException("renderer broke")).when(statementService)
+				.writeStatementPdf(argThat(a -> a != null && a.getId() == BROKEN), any(StatementPeriod.class), any(), any());
+
+		StatementBatchRun run = awaitEnd(batch.start(MONTH));
+		assertEquals("PARTIAL", run.getStatus());
+		assertEquals(1, run.getFailed());
+		assertEquals(4, run.getCheckpointAccountId());
+		assertEquals(ACCOUNTS - 1, run.getRendered());
+		assertEquals(0, run.getSkipped());
+
+		doAnswer(inv -> {
+			inv.<OutputStream>getArgument(3).write('%');
+			return null;
+		}).when(statementService).writeStatementPdf(any(), any(StatementPeriod.class), any(), any());
+
+		run = awaitEnd(startWhenIdle());
+		assertEquals("COMPLETED", run.getStatus());
+		assertEquals(0, run.getFailed());
+		assertEquals(ACCOUNTS, run.getCheckpointAccountId());
+		// only the broken one is rendered again; 1-4 lie behind the checkpoint and 6-10 are on disk
+		assertEquals(1, run.getRendered());
+		assertEquals(ACCOUNTS - 1, run.getSkipped());
+		assertTrue(Files.exists(dir.resolve(MONTH.toString()).resolve("statement_" + BROKEN + ".pdf")));
+	}
+
+	// The coordinator lets go of the run just after saving its final status
+	private StatementBatchRun startWhenIdle() throws InterruptedException {
+		for (int i = 0; ; i++) {
+			try {
+				return batch.start(MONTH);
+			} catch (IllegalStateException e) {
+				if (i == 500) throw e;
+				Thread.sleep(10);
+			}
+		}
+	}
+
+	private StatementBatchRun awaitEnd(StatementBatchRun run) throws InterruptedException {
+		for (int i = 0; i < 500 && "RUNNING".equals(run.getStatus()); i++) {
+			Thread.sleep(10);
+		}
+		return run;
+	}
+}
@@ -0,0 +1,110 @@
+package com.emp.ems.ServiceImpl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.emp.ems.dto.StatementLine;
+import com.emp.ems.dto.StatementPeriod;
+import com.emp.ems.entities.Account;
+import com.emp.ems.entities.AccountType;
+import com.emp.ems.entities.Customer;
+import com.emp.ems.entities.TransactionType;
+
+/**
+ * Rendering throughput of the month-end batch: the same renderer, worker count and
+ * temp-file-then-move output as StatementBatchServiceImpl, on synthetic accounts, so the
+ * number excludes the database. Run with
+ * {@code mvn test -Dtest=StatementBatchThroughputTest -Dbitbank.bench=true [-Dbench.accounts=100000]}.
+ */
+@EnabledIfSystemProperty(named = "bitbank.bench", matches = "true")
+class StatementBatchThroughputTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void rendersStatementsInParallel() throws Exception {
+		int accounts = Integer.getInteger("bench.accounts", 20_000);
+		int linesPerAccount = Integer.getInteger("bench.lines", 30);
+		int workers = Runtime.getRuntime().availableProcessors();
+
+		StatementServiceImpl renderer = new StatementServiceImpl(null, null, 500);
+		StatementPeriod period = StatementPeriod.of(null, null, YearMonth.of(2024, 1));
+		List<StatementLine> lines = lines(linesPerAccount);
+
+		// warm-up
+		render(renderer, period, lines, "warm_", 500, workers);
+
+		long start = System.nanoTime();
+		long bytes = render(renderer, period, lines, "statement_", accounts, workers);
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		assertEquals(accounts + 500, Files.list(dir).count());
+		System.out.printf("statement batch: %d statements x %d lines, %d workers: %.1fs, %.0f statements/s, %d KB avg%n",
+				accounts, linesPerAccount, workers, seconds, accounts / seconds, bytes / accounts / 1024);
+	}
+
+	private long render(StatementServiceImpl renderer, StatementPeriod period, List<StatementLine> lines,
+			String prefix, int count, int workers) throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(workers);
+		AtomicLong bytes = new AtomicLong();
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			int perTask = 200;
+			for (int from = 0; from < count; from += perTask) {
+				int first = from;
+				int last = Math.min(count, from + perTask);
+				futures.add(pool.submit(() -> {
+					for (int i = first; i < last; i++) {
+						Path tmp = Files.createTempFile(dir, prefix + i, ".tmp");
+						try (OutputStream out = Files.newOutputStream(tmp)) {
+							renderer.writeStatementPdf(account(i), period, lines, out);
+						}
+						bytes.addAndGet(Files.size(tmp));
+						Files.move(tmp, dir.resolve(prefix + i + ".pdf"));
+					}
+					return null;
+				}));
+			}
+			for (Future<?> f : futures) f.get();
+		} finally {
+			pool.shutdown();
+		}
+		return bytes.get();
+	}
+
+	private static Account account(int i) {
+		Customer c = new Customer();
+		c.setFullName("Customer " + i);
+		Account a = new Account();
+		a.setAccountNumber("BB" + (10_000_000 + i));
+		a.setType(AccountType.SAVINGS);
+		a.setCustomer(c);
+		return a;
+	}
+
+	private static List<StatementLine> lines(int n) {
+		List<StatementLine> lines = new ArrayList<>(n);
+		LocalDateTime t = LocalDateTime.of(2024, 1, 31, 18, 0);
+		for (int i = 0; i < n; i++) {
+			lines.add(new StatementLine((long) n - i, t.minusHours(i * 20L), TransactionType.TRANSFER,
+					"Transfer from BB10000001 to BB10000002", 12_345L + i, "SUCCESS", "BB10000001", "BB10000002"));
+		}
+		return lines;
+	}
+}
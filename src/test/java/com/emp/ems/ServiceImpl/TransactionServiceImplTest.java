@@ -0,0 +1,164 @@
+package com.emp.ems.ServiceImpl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.emp.ems.SeededAccounts;
+import com.emp.ems.Service.TransactionService;
+import com.emp.ems.dto.BatchTransferItemResult;
+import com.emp.ems.dto.BatchTransferResponse;
+import com.emp.ems.dto.TransferRequest;
+import com.emp.ems.dto.TransferStatus;
+
+/**
+ * Batch transfers against the test database: every item succeeds or fails on its own, later
+ * items see the balances earlier ones left, and two batches over the same accounts in opposite
+ * order both commit. The comparison with single transfer calls needs
+ * {@code -Dbitbank.bench=true [-Dbench.transfers=5000]}; give it a real database via DB_URL etc.
+ */
+@SpringBootTest(properties = "bitbank.standing-orders.sweep-ms=3600000")
+class TransactionServiceImplTest {
+
+	private static final long BASE_ID = 6_200_000_000L;
+	private static final String UNKNOWN = "T-unknown";
+
+	@Autowired
+	private TransactionService transactionService;
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	private SeededAccounts accounts;
+
+	@AfterEach
+	void cleanUp() {
+		if (accounts != null) accounts.cleanUp();
+	}
+
+	@Test
+	void batchItemsSucceedOrFailOnTheirOwn() {
+		long[] opening = { 10_000, 0, 500, 0 };
+		accounts = new SeededAccounts(jdbc, BASE_ID, opening.length).insert("SAVINGS", i -> opening[i], i -> 0.0);
+
+		BatchTransferResponse response = transactionService.batchTransfer(List.of(
+				transfer(0, 1, 40.0),
+				transfer(2, 3, 10.0),
+				transfer(UNKNOWN, accounts.number(1), 1.0),
+				transfer(accounts.number(0), UNKNOWN, 1.0),
+				transfer(1, 2, 25.0), // spends what item 0 paid in
+				transfer(0, 1, 0)));
+
+		assertEquals(2, response.getSucceeded());
+		assertEquals(4, response.getFailed());
+		List<TransferStatus> statuses = response.getResults().stream().map(BatchTransferItemResult::getStatus).toList();
+		assertEquals(List.of(TransferStatus.SUCCESS, TransferStatus.INSUFFICIENT_FUNDS, TransferStatus.UNKNOWN_SOURCE,
+				TransferStatus.UNKNOWN_TARGET, TransferStatus.SUCCESS, TransferStatus.INVALID_AMOUNT), statuses);
+
+		assertEquals(6_000L, balance(0));
+		assertEquals(1_500L, balance(1));
+		assertEquals(3_000L, balance(2));
+		assertEquals(0L, balance(3));
+		assertEquals(2, accounts.countTransactions("from_account_id"));
+		assertEquals(6_500L, jdbc.queryForObject("SELECT SUM(amount_minor) FROM transactions WHERE from_account_id >= ? " +
+				"AND from_account_id < ?", Long.class, accounts.id(0), accounts.id(opening.length)));
+	}
+
+	@Test
+	void concurrentBatchesInOppositeOrderBothCommit() throws Exception {
+		int count = 20;
+		int items = 500;
+		int rounds = 5;
+		accounts = new SeededAccounts(jdbc, BASE_ID, count).insert("SAVINGS", i -> 1_000_000L, i -> 0.0);
+
+		// A pays each account's neighbour, B pays every amount back, walking the accounts the other way
+		List<TransferRequest> forward = new ArrayList<>(items);
+		List<TransferRequest> backward = new ArrayList<>(items);
+		for (int i = 0; i < items; i++) {
+			forward.add(transfer(i % count, (i + 1) % count, 1.0));
+			int j = items - 1 - i;
+			backward.add(transfer((j + 1) % count, j % count, 1.0));
+		}
+
+		ExecutorService pool = Executors.newFixedThreadPool(2);
+		try {
+			for (int round = 0; round < rounds; round++) {
+				CountDownLatch start = new CountDownLatch(1);
+				Future<BatchTransferResponse> a = pool.submit(() -> {
+					start.await();
+					return transactionService.batchTransfer(forward);
+				});
+				Future<BatchTransferResponse> b = pool.submit(() -> {
+					start.await();
+					return transactionService.batchTransfer(backward);
+				});
+				start.countDown();
+				assertEquals(items, a.get().getSucceeded());
+				assertEquals(items, b.get().getSucceeded());
+			}
+		} finally {
+			pool.shutdown();
+		}
+
+		for (int i = 0; i < count; i++) {
+			assertEquals(1_000_000L, balance(i));
+		}
+		assertEquals(2L * items * rounds, accounts.countTransactions("from_account_id"));
+	}
+
+	@Test
+	@EnabledIfSystemProperty(named = "bitbank.bench", matches = "true")
+	void batchBeatsSingleTransfers() {
+		int count = 200;
+		int transfers = Integer.getInteger("bench.transfers", 5_000);
+		accounts = new SeededAccounts(jdbc, BASE_ID, count).insert("SAVINGS", i -> 100_000_000L, i -> 0.0);
+		List<TransferRequest> batch = new ArrayList<>(transfers);
+		for (int i = 0; i < transfers; i++) {
+			batch.add(transfer(i % count, (i * 7 + 1) % count, 1.0));
+		}
+		// warm the account lookup cache and the connection pool for both paths
+		transactionService.transfer(accounts.number(0), accounts.number(1), 100);
+
+		long start = System.nanoTime();
+		for (TransferRequest t : batch) {
+			transactionService.transfer(t.fromAccount, t.toAccount, 100);
+		}
+		double singleSeconds = (System.nanoTime() - start) / 1e9;
+
+		start = System.nanoTime();
+		BatchTransferResponse response = transactionService.batchTransfer(batch);
+		double batchSeconds = (System.nanoTime() - start) / 1e9;
+
+		assertEquals(transfers, response.getSucceeded());
+		assertEquals(2L * transfers + 1, accounts.countTransactions("from_account_id"));
+		System.out.printf("transfers, %d items: single calls %.2fs, one batch %.2fs (%.1fx)%n",
+				transfers, singleSeconds, batchSeconds, singleSeconds / batchSeconds);
+	}
+
+	private TransferRequest transfer(int from, int to, double rupees) {
+		return transfer(accounts.number(from), accounts.number(to), rupees);
+	}
+
+	private static TransferRequest transfer(String from, String to, double rupees) {
+		TransferRequest t = new TransferRequest();
+		t.fromAccount = from;
+		t.toAccount = to;
+		t.amount = rupees;
+		return t;
+	}
+
+	private long balance(int i) {
+		return jdbc.queryForObject("SELECT balance_minor FROM accounts WHERE id = ?", Long.class, accounts.id(i));
+	}
+}
@@ -0,0 +1,52 @@
+package com.emp.ems.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * The pool must end up larger than every thread that can hold a connection, however many
+ * per-core workers the host gives the services, without refusing to start.
+ */
+class ConnectionPoolCheckTest {
+
+	@Test
+	void poolLargeEnoughIsLeftAlone() {
+		HikariDataSource pool = pool(80);
+		new ConnectionPoolCheck(pool, List.of(holders("workers", 30)), 40, 3).check();
+		assertEquals(80, pool.getMaximumPoolSize());
+	}
+
+	@Test
+	void poolTooSmallForManyCoresIsGrown() {
+		// e.g. one statement renderer per core on a 48-core host
+		HikariDataSource pool = pool(80);
+		new ConnectionPoolCheck(pool, List.of(holders("standing-order workers", 4),
+				holders("statement batch workers", 49)), 40, 3).check();
+		assertEquals(97, pool.getMaximumPoolSize());
+	}
+
+	private static HikariDataSource pool(int size) {
+		HikariDataSource pool = new HikariDataSource();
+		pool.setMaximumPoolSize(size);
+		return pool;
+	}
+
+	private static ConnectionHolders holders(String name, int threads) {
+		return new ConnectionHolders() {
+			@Override
+			public String connectionHoldersName() {
+				return name;
+			}
+
+			@Override
+			public int connectionHolders() {
+				return threads;
+			}
+		};
+	}
+}
@@ -0,0 +1,48 @@
+package com.emp.ems.entities;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+class MoneyTest {
+
+	@Test
+	void convertsRupeesToPaise() {
+		assertEquals(1050L, Money.ofRupees(10.50));
+		assertEquals(30L, Money.ofRupees(0.1 + 0.2));
+		assertEquals(0.3, Money.toRupees(30L));
+	}
+
+	@Test
+	void formatsWithTwoDecimals() {
+		assertEquals("0.00", Money.format(0L));
+		assertEquals("0.05", Money.format(5L));
+		assertEquals("1234.50", Money.format(123450L));
+		assertEquals("-7.09", Money.format(-709L));
+	}
+
+	@Test
+	void accruesDailyInterestInMicroPaise() {
+		// 100000 paise at 4% -> 10.958904.. paise
+		assertEquals(10_958_904L, Money.dailyInterestMicros(100_000L, 0.04));
+		// a balance too small to earn a paisa a day still accrues
+		assertEquals(273_973L, Money.dailyInterestMicros(1_000L, 0.1));
+		assertEquals(0L, Money.dailyInterestMicros(-100L, 0.04));
+	}
+
+	@Test
+	void roundsMicroPaiseHalfEven() {
+		assertEquals(11L, Money.microsToPaise(10_958_904L));
+		// 30 days of 0.27 paise is 8 paise, not 30 days of nothing
+		assertEquals(8L, Money.microsToPaise(30 * Money.dailyInterestMicros(1_000L, 0.1)));
+		// exact half-paise ties go to the even neighbour
+		assertEquals(0L, Money.microsToPaise(500_000L));
+		assertEquals(2L, Money.microsToPaise(1_500_000L));
+	}
+
+	@Test
+	void arithmeticRejectsOverflow() {
+		assertThrows(ArithmeticException.class, () -> Money.add(Long.MAX_VALUE, 1L));
+	}
+}
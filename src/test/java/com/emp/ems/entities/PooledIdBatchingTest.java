@@ -0,0 +1,107 @@
+package com.emp.ems.entities;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hibernate.BaseSessionEventListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.emp.ems.SeededAccounts;
+import com.emp.ems.Repositories.AccountRepository;
+import com.emp.ems.Repositories.TransactionRepository;
+
+/**
+ * Pooled table ids let Hibernate batch the writes of a per-row loop: crediting every savings
+ * account and recording a transaction each, the way daily interest did before it went
+ * set-based, must reach the database once per JDBC batch rather than once per row. Round-trips
+ * are counted by a Hibernate session listener, id-block allocations included;
+ * {@code -Dbench.accounts=100000} prints them for a larger run.
+ */
+@SpringBootTest(properties = {
+		"bitbank.standing-orders.sweep-ms=3600000",
+		"spring.jpa.properties.hibernate.session.events.auto=com.emp.ems.entities.PooledIdBatchingTest$RoundTrips" })
+class PooledIdBatchingTest {
+
+	/** Counts statements executed on their own and JDBC batches, across all sessions. */
+	public static class RoundTrips extends BaseSessionEventListener {
+		static final AtomicLong statements = new AtomicLong();
+		static final AtomicLong batches = new AtomicLong();
+
+		@Override
+		public void jdbcExecuteStatementStart() {
+			statements.incrementAndGet();
+		}
+
+		@Override
+		public void jdbcExecuteBatchStart() {
+			batches.incrementAndGet();
+		}
+	}
+
+	private static final long BASE_ID = 6_300_000_000L;
+
+	private final int count = Integer.getInteger("bench.accounts", 2_000);
+
+	@Autowired
+	private JdbcTemplate jdbc;
+	@Autowired
+	private AccountRepository accountRepo;
+	@Autowired
+	private TransactionRepository transactionRepo;
+	@Autowired
+	private PlatformTransactionManager txManager;
+
+	private SeededAccounts accounts;
+
+	@BeforeEach
+	void seed() {
+		accounts = new SeededAccounts(jdbc, BASE_ID, count).insert("SAVINGS", i -> 1_000_000L, i -> 0.04);
+	}
+
+	@AfterEach
+	void cleanUp() {
+		accounts.cleanUp();
+	}
+
+	@Test
+	void perRowLoopIsWrittenInBatches() {
+		RoundTrips.statements.set(0);
+		RoundTrips.batches.set(0);
+
+		new TransactionTemplate(txManager).executeWithoutResult(status -> {
+			List<Account> savings = accountRepo.findByType(AccountType.SAVINGS);
+			for (Account acc : savings) {
+				acc.setBalanceMinor(Money.add(acc.getBalanceMinor(), 1));
+				accountRepo.save(acc);
+
+				Transaction tx = new Transaction();
+				tx.setType(TransactionType.INTEREST);
+				tx.setAmountMinor(1);
+				tx.setDescription("Daily interest");
+				tx.setToAccount(acc);
+				tx.setStatus("SUCCESS");
+				transactionRepo.save(tx);
+			}
+		});
+
+		long statements = RoundTrips.statements.get();
+		long batches = RoundTrips.batches.get();
+		System.out.printf("per-row loop, %d accounts: %d statements + %d batches = %d round-trips%n",
+				count, statements, batches, statements + batches);
+
+		assertEquals(count, accounts.countTransactions("to_account_id"));
+		assertEquals(count + 1_000_000L * count, accounts.totalBalance());
+		assertTrue(statements + batches < count / 50, () -> statements + " statements and " + batches
+				+ " batches for " + count + " rows");
+	}
+}